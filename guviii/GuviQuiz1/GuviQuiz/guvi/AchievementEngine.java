@@ -0,0 +1,132 @@
+import java.util.*;
+
+/**
+ * Rule-based achievements. Each rule sees every new quiz result once and
+ * keeps whatever small state it needs (counters, streaks, records), so
+ * awarding costs O(rules) per result however long the history is.
+ * Earned badges are held in an insertion-ordered hash set.
+ */
+public class AchievementEngine {
+
+    /**
+     * A badge rule; called once per quiz result, in completion order
+     */
+    public interface Rule {
+        void onResult(String domain, QuizResult result, AchievementEngine engine);
+    }
+
+    private final List<Rule> rules;
+    private final Set<String> earnedBadges;
+    private int points;
+    private int resultCount;
+    private boolean priming;
+
+    public AchievementEngine(Collection<String> earnedBadges, int points) {
+        this.rules = defaultRules();
+        this.earnedBadges = new LinkedHashSet<>(earnedBadges);
+        this.points = points;
+    }
+
+    private static List<Rule> defaultRules() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(new QuizCountRule(1, "First Quiz", 10));
+        rules.add(new QuizCountRule(5, "Quiz Enthusiast", 25));
+        rules.add(new PerfectScoreRule());
+        return rules;
+    }
+
+    /**
+     * Feed a new result through every rule, awarding any badges it earns
+     */
+    public void onResult(String domain, QuizResult result) {
+        resultCount++;
+        for (Rule rule : rules) {
+            rule.onResult(domain, result, this);
+        }
+    }
+
+    /**
+     * Rebuild rule state from past results without awarding anything again.
+     * Used when a profile is loaded, since only the badges are stored.
+     */
+    public void prime(Map<String, List<QuizResult>> history) {
+        List<Map.Entry<String, QuizResult>> results = new ArrayList<>();
+        for (Map.Entry<String, List<QuizResult>> entry : history.entrySet()) {
+            for (QuizResult result : entry.getValue()) {
+                results.add(new AbstractMap.SimpleEntry<>(entry.getKey(), result));
+            }
+        }
+        results.sort(Comparator.comparing(entry -> entry.getValue().getCompletionDate(),
+            Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        priming = true;
+        try {
+            for (Map.Entry<String, QuizResult> entry : results) {
+                onResult(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            priming = false;
+        }
+    }
+
+    /**
+     * Award a badge if it has not been earned yet
+     */
+    public void award(String badge, int badgePoints) {
+        if (!priming && earnedBadges.add(badge)) {
+            points += badgePoints;
+        }
+    }
+
+    public boolean hasBadge(String badge) {
+        return earnedBadges.contains(badge);
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    public Set<String> getEarnedBadges() {
+        return Collections.unmodifiableSet(earnedBadges);
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    // ------------------------------------------------------------------ rules
+
+    /**
+     * Badge for reaching an exact number of quizzes
+     */
+    static class QuizCountRule implements Rule {
+        private final int count;
+        private final String badge;
+        private final int badgePoints;
+
+        QuizCountRule(int count, String badge, int badgePoints) {
+            this.count = count;
+            this.badge = badge;
+            this.badgePoints = badgePoints;
+        }
+
+        @Override
+        public void onResult(String domain, QuizResult result, AchievementEngine engine) {
+            if (engine.getResultCount() == count) {
+                engine.award(badge, badgePoints);
+            }
+        }
+    }
+
+    /**
+     * "Perfect Score: <domain>" for the first perfect quiz in a domain
+     */
+    static class PerfectScoreRule implements Rule {
+        @Override
+        public void onResult(String domain, QuizResult result, AchievementEngine engine) {
+            if (result.isPerfectScore()) {
+                engine.award("Perfect Score: " + domain, 50);
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The Gemini API keys one endpoint may be called with, each with its own
+ * quota, load and health. Quotas are per key (per Cloud project), so with
+ * several keys the usable throughput is the sum of theirs.
+ *
+ * A call leases the least-loaded key that can pay for it right now: fewest
+ * calls in flight, then the most request quota left, then round-robin.
+ * A key that is rate limited (429) is benched for the Retry-After delay, or
+ * an exponential backoff if the server gave none; one that is refused
+ * (401/403: revoked, or its project disabled) is benched for minutes. The
+ * other keys carry on meanwhile, and a success clears a key's strikes.
+ */
+public class ApiKeyPool {
+    private static final long RATE_LIMIT_COOLDOWN_MILLIS = 1_000;
+    private static final long MAX_RATE_LIMIT_COOLDOWN_MILLIS = 60_000;
+    private static final long REJECTED_COOLDOWN_MILLIS = 5 * 60_000;
+    private static final long MAX_REJECTED_COOLDOWN_MILLIS = 60 * 60_000;
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    private static final class Key {
+        final String value;
+        TokenBucket requests;
+        TokenBucket tokens;
+        int inFlight;
+        long coolingUntil = System.nanoTime(); // Benched until this System.nanoTime()
+        int strikes;
+        long successCount;
+        long rateLimitedCount;
+        long rejectedCount;
+
+        Key(String value, int requestsPerMinute, int tokensPerMinute) {
+            this.value = value;
+            this.requests = new TokenBucket(requestsPerMinute);
+            this.tokens = new TokenBucket(tokensPerMinute);
+        }
+
+        long nanosCooling(long now) {
+            return Math.max(0, coolingUntil - now);
+        }
+
+        long nanosUntil(long estimatedTokens, long now) {
+            return Math.max(nanosCooling(now), Math.max(requests.nanosUntil(1), tokens.nanosUntil(estimatedTokens)));
+        }
+
+        double headroom() {
+            return requests.isUnlimited() ? 1 : requests.available() / requests.getPerMinute();
+        }
+    }
+
+    /**
+     * One call's hold on a key. Settle it with the tokens really used, or
+     * refund it if the call never reached the API; finish it once with the
+     * call's outcome.
+     */
+    public final class Lease {
+        private final Key key;
+        private final long chargedTokens;
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Lease(Key key, long chargedTokens) {
+            this.key = key;
+            this.chargedTokens = chargedTokens;
+        }
+
+        public String getApiKey() {
+            return key.value;
+        }
+
+        /**
+         * Square the key's quota with the tokens the call really used,
+         * against what the lease charged (the estimate, capped at the
+         * key's burst)
+         */
+        public void settle(long actualTokens) {
+            if (settled.compareAndSet(false, true)) {
+                synchronized (ApiKeyPool.this) {
+                    key.tokens.adjust(chargedTokens - actualTokens);
+                }
+            }
+        }
+
+        public void refund() {
+            if (settled.compareAndSet(false, true)) {
+                synchronized (ApiKeyPool.this) {
+                    key.requests.adjust(1);
+                    key.tokens.adjust(chargedTokens);
+                }
+            }
+            release();
+        }
+
+        /**
+         * End the lease without saying anything about the key, e.g. the
+         * call was cancelled or never sent
+         */
+        public void release() {
+            if (finished.compareAndSet(false, true)) {
+                synchronized (ApiKeyPool.this) {
+                    key.inFlight--;
+                }
+            }
+        }
+
+        /**
+         * Record how the call went: null for success, otherwise its error.
+         * Only rate limiting and refused keys count against the key;
+         * anything else is the endpoint's business, not the key's.
+         */
+        public void finish(Throwable error) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            while (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
+            }
+            synchronized (ApiKeyPool.this) {
+                key.inFlight--;
+                if (error == null) {
+                    key.successCount++;
+                    key.strikes = 0;
+                } else if (error instanceof GeminiApiException) {
+                    GeminiApiException apiError = (GeminiApiException) error;
+                    if (apiError.isRateLimited()) {
+                        key.rateLimitedCount++;
+                        long retryAfter = apiError.getRetryAfterMillis();
+                        bench(key, retryAfter > 0 ? retryAfter
+                            : backoff(RATE_LIMIT_COOLDOWN_MILLIS, MAX_RATE_LIMIT_COOLDOWN_MILLIS, key.strikes), "rate limited");
+                    } else if (apiError.isKeyRejected()) {
+                        key.rejectedCount++;
+                        bench(key, backoff(REJECTED_COOLDOWN_MILLIS, MAX_REJECTED_COOLDOWN_MILLIS, key.strikes),
+                            "refused with " + apiError.getStatusCode());
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Key> keys = new ArrayList<>();
+    private int requestsPerMinute;
+    private int tokensPerMinute;
+    private int nextIndex;
+
+    /**
+     * Replace the keys, keeping the quota and health of any that remain
+     */
+    public synchronized void setKeys(Collection<String> values) {
+        Map<String, Key> existing = new HashMap<>();
+        for (Key key : keys) {
+            existing.put(key.value, key);
+        }
+        List<Key> updated = new ArrayList<>();
+        for (String value : new LinkedHashSet<>(values)) {
+            Key key = existing.get(value);
+            updated.add(key != null ? key : new Key(value, requestsPerMinute, tokensPerMinute));
+        }
+        keys = updated;
+    }
+
+    /**
+     * Set the quota of each key; 0 means unlimited
+     */
+    public synchronized void configure(int requestsPerMinute, int tokensPerMinute) {
+        this.requestsPerMinute = Math.max(0, requestsPerMinute);
+        this.tokensPerMinute = Math.max(0, tokensPerMinute);
+        for (Key key : keys) {
+            // Keep the buckets' balances when the quota has not changed
+            if (key.requests.getPerMinute() != this.requestsPerMinute) {
+                key.requests = new TokenBucket(this.requestsPerMinute);
+            }
+            if (key.tokens.getPerMinute() != this.tokensPerMinute) {
+                key.tokens = new TokenBucket(this.tokensPerMinute);
+            }
+        }
+    }
+
+    /**
+     * Nanoseconds until some key could take a call of this size; 0 if one
+     * can now, Long.MAX_VALUE if there are no keys
+     */
+    public synchronized long nanosUntilAvailable(long estimatedTokens) {
+        long now = System.nanoTime();
+        long soonest = Long.MAX_VALUE;
+        for (Key key : keys) {
+            soonest = Math.min(soonest, key.nanosUntil(estimatedTokens, now));
+        }
+        return soonest;
+    }
+
+    /**
+     * Nanoseconds until some key comes off the bench, ignoring quota; 0 if
+     * one is usable now, Long.MAX_VALUE if there are no keys
+     */
+    public synchronized long nanosUntilUsable() {
+        long now = System.nanoTime();
+        long soonest = Long.MAX_VALUE;
+        for (Key key : keys) {
+            soonest = Math.min(soonest, key.nanosCooling(now));
+        }
+        return soonest;
+    }
+
+    /**
+     * Lease the least-loaded key that can pay for a call now, charging its
+     * quota, or return null if none can
+     */
+    public synchronized Lease lease(long estimatedTokens) {
+        long now = System.nanoTime();
+        Key best = null;
+        int size = keys.size();
+        for (int i = 0; i < size; i++) {
+            Key key = keys.get((nextIndex + i) % size);
+            if (key.nanosUntil(estimatedTokens, now) > 0) {
+                continue;
+            }
+            if (best == null || key.inFlight < best.inFlight
+                    || (key.inFlight == best.inFlight && key.headroom() > best.headroom())) {
+                best = key;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        nextIndex = (keys.indexOf(best) + 1) % size;
+        best.requests.take(1);
+        long charged = best.tokens.take(estimatedTokens);
+        best.inFlight++;
+        return new Lease(best, charged);
+    }
+
+    private static long backoff(long baseMillis, long maxMillis, int strikes) {
+        return Math.min(maxMillis, baseMillis << Math.min(strikes, MAX_BACKOFF_SHIFT));
+    }
+
+    private void bench(Key key, long millis, String reason) {
+        key.strikes++;
+        key.coolingUntil = Math.max(key.coolingUntil, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+        System.err.println("API key " + mask(key.value) + " " + reason + ", benched for " + millis + "ms");
+    }
+
+    /**
+     * Show only the end of a key, for logs
+     */
+    static String mask(String key) {
+        return key.length() <= 4 ? "****" : "..." + key.substring(key.length() - 4);
+    }
+
+    // ---------------------------------------------------------------- stats
+
+    public synchronized int getKeyCount() {
+        return keys.size();
+    }
+
+    /**
+     * Keys not currently benched
+     */
+    public synchronized int getUsableKeyCount() {
+        long now = System.nanoTime();
+        int usable = 0;
+        for (Key key : keys) {
+            if (key.nanosCooling(now) == 0) {
+                usable++;
+            }
+        }
+        return usable;
+    }
+
+    /**
+     * One line per key: masked key, calls in flight, outcomes and bench time
+     */
+    public synchronized List<String> describe() {
+        long now = System.nanoTime();
+        List<String> lines = new ArrayList<>();
+        for (Key key : keys) {
+            long cooling = TimeUnit.NANOSECONDS.toMillis(key.nanosCooling(now));
+            lines.add(mask(key.value) + ": " + key.inFlight + " in flight, " + key.successCount + " ok, "
+                + key.rateLimitedCount + " rate limited, " + key.rejectedCount + " refused"
+                + (cooling > 0 ? ", benched for " + cooling + "ms" : ""));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,156 @@
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit breaker for calls to one endpoint.
+ *
+ * CLOSED: calls go through; failureThreshold consecutive failures open it.
+ * OPEN: calls fail fast with OpenException until the open period ends.
+ * HALF_OPEN: one probe call is let through; success closes the circuit,
+ * failure opens it again for twice as long (up to 8x the base period).
+ *
+ * Rate limiting and refused keys are not outages; ApiKeyPool benches the
+ * key concerned and the circuit is left alone.
+ */
+public class CircuitBreaker {
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MILLIS = 30_000;
+    private static final int MAX_BACKOFF_SHIFT = 3;
+
+    private static final Map<String, CircuitBreaker> SHARED = new ConcurrentHashMap<>();
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Thrown instead of making a call while the circuit is open
+     */
+    public static class OpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+        private final long retryInMillis;
+
+        public OpenException(String name, long retryInMillis) {
+            super("Circuit open for " + name + ", retry in " + retryInMillis + "ms");
+            this.retryInMillis = retryInMillis;
+        }
+
+        public long getRetryInMillis() {
+            return retryInMillis;
+        }
+    }
+
+    private final String name;
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private long openMillis = DEFAULT_OPEN_MILLIS;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int reopenCount;
+    private long openUntil;
+    private long probeStartedAt = -1;
+    private long probeId;
+
+    public CircuitBreaker(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the breaker shared by every caller of an endpoint in this JVM
+     */
+    public static CircuitBreaker shared(String name) {
+        return SHARED.computeIfAbsent(name, CircuitBreaker::new);
+    }
+
+    public synchronized void configure(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = Math.max(1, openMillis);
+    }
+
+    /**
+     * Ask to make a call. Every call that is let through must be followed
+     * by onSuccess, onFailure or release.
+     *
+     * @return the ticket to hand to release: nonzero if this call is the
+     *         half-open probe
+     * @throws OpenException if the call should not be made
+     */
+    public synchronized long acquire() throws OpenException {
+        long now = System.currentTimeMillis();
+        if (state == State.OPEN) {
+            if (now < openUntil) {
+                throw new OpenException(name, openUntil - now);
+            }
+            state = State.HALF_OPEN;
+            probeStartedAt = -1;
+            System.out.println("Circuit half-open for " + name + ", probing");
+        }
+        if (state == State.HALF_OPEN) {
+            // A probe that never reported back must not wedge the circuit
+            if (probeStartedAt >= 0 && now - probeStartedAt < openMillis) {
+                throw new OpenException(name, openMillis - (now - probeStartedAt));
+            }
+            probeStartedAt = now;
+            return ++probeId;
+        }
+        return 0;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            System.out.println("Circuit closed for " + name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        reopenCount = 0;
+        probeStartedAt = -1;
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            reopenCount = Math.min(reopenCount + 1, MAX_BACKOFF_SHIFT);
+            open(openMillis << reopenCount);
+        } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open(openMillis);
+        }
+    }
+
+    /**
+     * A call ended without saying anything about the endpoint (e.g. it was
+     * cancelled). If it was the current probe, another call may probe;
+     * any other call leaves the probe slot alone.
+     *
+     * @param ticket what acquire returned for the call
+     */
+    public synchronized void release(long ticket) {
+        if (ticket != 0 && ticket == probeId) {
+            probeStartedAt = -1;
+        }
+    }
+
+    private void open(long millis) {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + millis;
+        probeStartedAt = -1;
+        System.err.println("Circuit opened for " + name + " for " + millis + "ms after "
+            + Math.max(consecutiveFailures, 1) + " failure(s)");
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() >= openUntil) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Whether a call made now would be let through
+     */
+    public synchronized boolean allowsCalls() {
+        State current = getState();
+        return current == State.CLOSED || (current == State.HALF_OPEN && probeStartedAt < 0);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -72,6 +72,34 @@ public class Config {
         saveConfig();
     }
     
+    /**
+     * Get every configured Gemini API key: gemini.api.key plus the
+     * comma-separated gemini.api.keys. Each key has its own quota, so
+     * calls are spread over all of them.
+     */
+    public List<String> getGeminiApiKeys() {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(getGeminiApiKey().trim());
+        for (String key : properties.getProperty("gemini.api.keys", "").split(",")) {
+            keys.add(key.trim());
+        }
+        keys.remove("");
+        keys.remove("YOUR_GEMINI_API_KEY_HERE");
+        return new ArrayList<>(keys);
+    }
+    
+    /**
+     * Get Gemini API base URL. The gemini.api.base.url system property
+     * takes precedence so a local stand-in server can be swapped in.
+     */
+    public String getGeminiApiBaseUrl() {
+        String override = System.getProperty("gemini.api.base.url");
+        if (override != null && !override.isEmpty()) {
+            return override;
+        }
+        return properties.getProperty("gemini.api.base.url", GeminiQuestionGenerator.DEFAULT_API_BASE_URL);
+    }
+    
     /**
      * Check if AI questions should be used
      */
@@ -127,10 +155,180 @@ public class Config {
     }
     
     /**
-     * Check if API key is configured
+     * Get number of questions to keep pooled per domain and difficulty
+     */
+    public int getPoolTargetSize() {
+        return getIntProperty("pool.target.size", 30, 1, 500);
+    }
+    
+    /**
+     * Get pool size below which a background refill is triggered
+     */
+    public int getPoolLowWaterMark() {
+        return getIntProperty("pool.low.water.mark", 15, 0, 500);
+    }
+    
+    /**
+     * Get number of questions requested from Gemini per refill call
+     */
+    public int getPoolRefillBatchSize() {
+        return getIntProperty("pool.refill.batch.size", 10, 1, 50);
+    }
+    
+    /**
+     * Get question count at which a request is split into concurrent chunks
+     */
+    public int getFanOutThreshold() {
+        return getIntProperty("fanout.threshold", 20, 2, 1000);
+    }
+    
+    /**
+     * Get number of questions asked for in each concurrent chunk
+     */
+    public int getFanOutChunkSize() {
+        return getIntProperty("fanout.chunk.size", 5, 1, 50);
+    }
+    
+    /**
+     * Get milliseconds a shared generation waits for other quizzes to join
+     * before it is sent, when quizzes for its domain and difficulty are
+     * arriving together; a lone quiz does not wait
+     */
+    public int getFlightGatherMillis() {
+        return getIntProperty("flight.gather.millis", 50, 0, 1000);
+    }
+    
+    /**
+     * Get directory holding the offline question corpora (*.dat)
+     */
+    public String getOfflineQuestionsDir() {
+        return properties.getProperty("offline.questions.dir", "questions");
+    }
+    
+    /**
+     * Get port the HTTP quiz server listens on
+     */
+    public int getServerPort() {
+        return getIntProperty("server.port", 8080, 1, 65535);
+    }
+    
+    /**
+     * Get maximum attempts per Gemini generation, including the first
+     */
+    public int getRetryMaxAttempts() {
+        return getIntProperty("gemini.retry.max.attempts", 3, 1, 10);
+    }
+    
+    /**
+     * Get backoff ceiling for the first retry; it doubles per retry
+     */
+    public int getRetryBaseDelayMillis() {
+        return getIntProperty("gemini.retry.base.delay.ms", 500, 1, 60_000);
+    }
+    
+    /**
+     * Get longest backoff between retries
+     */
+    public int getRetryMaxDelayMillis() {
+        return getIntProperty("gemini.retry.max.delay.ms", 8_000, 1, 300_000);
+    }
+    
+    /**
+     * Get total time a generation may spend waiting between retries
+     */
+    public int getRetryBudgetMillis() {
+        return getIntProperty("gemini.retry.budget.ms", 15_000, 0, 600_000);
+    }
+    
+    /**
+     * Get consecutive Gemini failures that open the circuit breaker
+     */
+    public int getCircuitFailureThreshold() {
+        return getIntProperty("gemini.circuit.failure.threshold", CircuitBreaker.DEFAULT_FAILURE_THRESHOLD, 1, 100);
+    }
+    
+    /**
+     * Get how long an open circuit fails fast before probing Gemini again
+     */
+    public int getCircuitOpenMillis() {
+        return getIntProperty("gemini.circuit.open.ms", (int) CircuitBreaker.DEFAULT_OPEN_MILLIS, 1_000, 600_000);
+    }
+    
+    /**
+     * Get Gemini requests-per-minute quota of each API key; 0 = unlimited.
+     * The default is the Gemini 2.5 Flash free tier.
+     */
+    public int getRateLimitRequestsPerMinute() {
+        return getIntProperty("gemini.rate.limit.rpm", 10, 0, 1_000_000);
+    }
+    
+    /**
+     * Get Gemini tokens-per-minute quota of each API key; 0 = unlimited
+     */
+    public int getRateLimitTokensPerMinute() {
+        return getIntProperty("gemini.rate.limit.tpm", 250_000, 0, 100_000_000);
+    }
+    
+    /**
+     * Get longest a quiz's Gemini request may wait for quota before the
+     * quiz falls back to pooled or offline questions
+     */
+    public int getRateLimitMaxWaitMillis() {
+        return getIntProperty("gemini.rate.limit.max.wait.ms", 20_000, 0, 600_000);
+    }
+    
+    /**
+     * Check if slow Gemini calls may be hedged with a second request
+     */
+    public boolean isHedgingEnabled() {
+        String value = properties.getProperty("gemini.hedge.enabled", "false");
+        return Boolean.parseBoolean(value.trim());
+    }
+    
+    /**
+     * Get the recent-latency percentile after which a call is hedged
+     */
+    public int getHedgePercentile() {
+        return getIntProperty("gemini.hedge.percentile", RequestHedger.DEFAULT_PERCENTILE, 50, 99);
+    }
+    
+    /**
+     * Get most hedges allowed, as a percentage of Gemini calls
+     */
+    public int getHedgeMaxPercent() {
+        return getIntProperty("gemini.hedge.max.percent", RequestHedger.DEFAULT_MAX_PERCENT, 0, 50);
+    }
+    
+    /**
+     * Get shortest time a call runs before it may be hedged
+     */
+    public int getHedgeMinDelayMillis() {
+        return getIntProperty("gemini.hedge.min.delay.ms", (int) RequestHedger.DEFAULT_MIN_DELAY_MILLIS, 0, 60_000);
+    }
+    
+    /**
+     * Get seconds between console dumps of the metrics; 0 = no dump
+     */
+    public int getMetricsDumpIntervalSeconds() {
+        return getIntProperty("metrics.dump.interval.seconds", 0, 0, 86_400);
+    }
+    
+    /**
+     * Read a bounded integer property, falling back to a default
+     */
+    private int getIntProperty(String key, int defaultValue, int min, int max) {
+        String value = properties.getProperty(key, String.valueOf(defaultValue));
+        try {
+            return Math.max(min, Math.min(max, Integer.parseInt(value.trim())));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * Check if at least one API key is configured
      */
     public boolean isGeminiApiKeyConfigured() {
-        String key = getGeminiApiKey();
-        return key != null && !key.isEmpty() && !key.equals("YOUR_GEMINI_API_KEY_HERE");
+        return !getGeminiApiKeys().isEmpty();
     }
 }
@@ -0,0 +1,240 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shared timer for question countdowns and other deadlines.
+ * A single daemon thread drives a hashed timing wheel: each entry sits in
+ * the bucket for its deadline tick, and the thread visits one bucket per
+ * tick, so starting, cancelling and firing are O(1) however many
+ * countdowns are live. Entries are intrusive list nodes that are re-linked
+ * in place each second, so ticking allocates nothing.
+ *
+ * Callbacks run on the scheduler thread, outside its lock, and must be
+ * quick; hand real work to another thread (e.g. SwingUtilities.invokeLater).
+ */
+public class CountdownScheduler {
+    private static final long TICK_MILLIS = 100;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+    private static final int TICKS_PER_SECOND = (int) (1000 / TICK_MILLIS);
+    private static final int WHEEL_SIZE = 512; // Power of two; one turn is 51.2s
+
+    /**
+     * Receives a ticking countdown's progress
+     */
+    public interface Listener {
+        /**
+         * Called once a second with the time left, and a last time when the
+         * countdown reaches zero (then countdown.isExpired() is true)
+         */
+        void tick(Countdown countdown);
+    }
+
+    /**
+     * One scheduled countdown or one-shot task
+     */
+    public static final class Countdown {
+        private final Listener listener;
+        private final Runnable task;
+        private volatile int secondsRemaining;
+        private volatile boolean cancelled;
+        private volatile boolean expired;
+
+        // Guarded by the scheduler lock
+        private long deadlineTick;
+        private int bucket = -1;
+        private Countdown prev;
+        private Countdown next;
+
+        // Touched only by the scheduler thread
+        private Countdown nextFired;
+
+        private Countdown(Listener listener, Runnable task, int secondsRemaining) {
+            this.listener = listener;
+            this.task = task;
+            this.secondsRemaining = secondsRemaining;
+        }
+
+        public int getSecondsRemaining() {
+            return secondsRemaining;
+        }
+
+        public boolean isExpired() {
+            return expired;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private static CountdownScheduler shared;
+
+    private final Countdown[] wheel = new Countdown[WHEEL_SIZE];
+    private final long startNanos;
+    private final Thread thread;
+    private long currentTick;
+    private int size;
+
+    public CountdownScheduler() {
+        startNanos = System.nanoTime();
+        thread = new Thread(this::runWheel, "countdown-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * The scheduler shared by every quiz in this JVM
+     */
+    public static synchronized CountdownScheduler shared() {
+        if (shared == null) {
+            shared = new CountdownScheduler();
+        }
+        return shared;
+    }
+
+    /**
+     * Start a countdown that ticks the listener every second until it
+     * reaches zero or is cancelled
+     */
+    public Countdown start(int seconds, Listener listener) {
+        Countdown countdown = new Countdown(listener, null, Math.max(0, seconds));
+        synchronized (this) {
+            link(countdown, tickAfter(TimeUnit.SECONDS.toNanos(1)));
+        }
+        return countdown;
+    }
+
+    /**
+     * Run a task once after a delay, unless cancelled first
+     */
+    public Countdown schedule(long delay, TimeUnit unit, Runnable task) {
+        Countdown countdown = new Countdown(null, task, 0);
+        synchronized (this) {
+            link(countdown, tickAfter(unit.toNanos(delay)));
+        }
+        return countdown;
+    }
+
+    /**
+     * Stop a countdown. A tick already being delivered may still arrive,
+     * so listeners should check isCancelled().
+     *
+     * @return true if it was still pending
+     */
+    public boolean cancel(Countdown countdown) {
+        countdown.cancelled = true;
+        synchronized (this) {
+            if (countdown.bucket < 0) {
+                return false;
+            }
+            unlink(countdown);
+            return true;
+        }
+    }
+
+    /**
+     * Number of countdowns waiting to fire
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    // ---------------------------------------------------------------- wheel
+
+    private long tickAfter(long delayNanos) {
+        long elapsed = System.nanoTime() - startNanos + delayNanos;
+        long tick = (elapsed + TICK_NANOS - 1) / TICK_NANOS;
+        return Math.max(tick, currentTick + 1);
+    }
+
+    private void link(Countdown countdown, long deadlineTick) {
+        int bucket = (int) (deadlineTick & (WHEEL_SIZE - 1));
+        countdown.deadlineTick = deadlineTick;
+        countdown.bucket = bucket;
+        countdown.prev = null;
+        countdown.next = wheel[bucket];
+        if (wheel[bucket] != null) {
+            wheel[bucket].prev = countdown;
+        }
+        wheel[bucket] = countdown;
+        size++;
+    }
+
+    private void unlink(Countdown countdown) {
+        if (countdown.prev != null) {
+            countdown.prev.next = countdown.next;
+        } else {
+            wheel[countdown.bucket] = countdown.next;
+        }
+        if (countdown.next != null) {
+            countdown.next.prev = countdown.prev;
+        }
+        countdown.prev = null;
+        countdown.next = null;
+        countdown.bucket = -1;
+        size--;
+    }
+
+    private void runWheel() {
+        long tick = 0;
+        while (true) {
+            tick++;
+            long wait;
+            while ((wait = startNanos + tick * TICK_NANOS - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+            fire(collectDue(tick));
+        }
+    }
+
+    /**
+     * Take this tick's due entries off the wheel, re-linking ticking
+     * countdowns for their next second, and chain them for delivery
+     */
+    private synchronized Countdown collectDue(long tick) {
+        currentTick = tick;
+        Countdown fired = null;
+        Countdown countdown = wheel[(int) (tick & (WHEEL_SIZE - 1))];
+        while (countdown != null) {
+            Countdown next = countdown.next;
+            if (countdown.deadlineTick <= tick) {
+                unlink(countdown);
+                if (countdown.listener != null) {
+                    int remaining = countdown.secondsRemaining - 1;
+                    countdown.secondsRemaining = remaining;
+                    if (remaining > 0) {
+                        link(countdown, countdown.deadlineTick + TICKS_PER_SECOND);
+                    } else {
+                        countdown.expired = true;
+                    }
+                }
+                countdown.nextFired = fired;
+                fired = countdown;
+            }
+            countdown = next;
+        }
+        return fired;
+    }
+
+    private void fire(Countdown fired) {
+        while (fired != null) {
+            Countdown countdown = fired;
+            fired = countdown.nextFired;
+            countdown.nextFired = null;
+            if (countdown.cancelled) {
+                continue;
+            }
+
+            try {
+                if (countdown.listener != null) {
+                    countdown.listener.tick(countdown);
+                } else {
+                    countdown.expired = true;
+                    countdown.task.run();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Countdown callback failed: " + e.getMessage());
+            }
+        }
+    }
+}
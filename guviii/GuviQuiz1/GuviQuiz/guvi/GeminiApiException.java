@@ -0,0 +1,103 @@
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Error response from the Gemini API, with the status code and any
+ * Retry-After delay the server asked for
+ */
+public class GeminiApiException extends IOException {
+    private static final long serialVersionUID = 1L;
+    // Gemini also reports the delay in the body, as RetryInfo "retryDelay": "37s"
+    private static final Pattern RETRY_DELAY = Pattern.compile("\"retryDelay\"\\s*:\\s*\"(\\d+(?:\\.\\d+)?)s\"");
+
+    private final int statusCode;
+    private final long retryAfterMillis;
+
+    public GeminiApiException(int statusCode, String body, long retryAfterMillis) {
+        super("API Error " + statusCode + ": " + body);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Build the exception for a non-200 response
+     */
+    public static GeminiApiException fromResponse(HttpResponse<?> response, String body) {
+        return new GeminiApiException(response.statusCode(), body,
+            retryAfterMillis(response.headers().firstValue("Retry-After").orElse(null), body));
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Delay the server asked for before the next attempt, or -1 if none
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Whether the same request may succeed later: rate limiting, timeouts
+     * and server errors are transient, bad requests and bad keys are not
+     */
+    public boolean isRetryable() {
+        return statusCode == 429 || statusCode == 408 || statusCode >= 500;
+    }
+
+    /**
+     * Whether the error says the endpoint is unhealthy, as opposed to
+     * something wrong with our key or with this one request
+     */
+    public boolean isEndpointFailure() {
+        return statusCode == 408 || statusCode >= 500;
+    }
+
+    /**
+     * Whether the key used has run out of quota for now
+     */
+    public boolean isRateLimited() {
+        return statusCode == 429;
+    }
+
+    /**
+     * Whether the key used was refused: invalid, revoked, or its project
+     * lacks access to the API
+     */
+    public boolean isKeyRejected() {
+        return statusCode == 401 || statusCode == 403;
+    }
+
+    /**
+     * Parse a Retry-After header (delta seconds or an HTTP date), falling
+     * back to the retryDelay in the error body
+     */
+    static long retryAfterMillis(String header, String body) {
+        if (header != null) {
+            try {
+                return Math.max(0, (long) (Double.parseDouble(header.trim()) * 1000));
+            } catch (NumberFormatException e) {
+                try {
+                    ZonedDateTime date = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                    return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+                } catch (DateTimeParseException ignored) {
+                    // Fall through to the body
+                }
+            }
+        }
+        if (body != null) {
+            Matcher matcher = RETRY_DELAY.matcher(body);
+            if (matcher.find()) {
+                return (long) (Double.parseDouble(matcher.group(1)) * 1000);
+            }
+        }
+        return -1;
+    }
+}
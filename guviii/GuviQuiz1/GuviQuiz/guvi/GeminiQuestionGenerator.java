@@ -1,18 +1,123 @@
 import java.io.*;
 import java.net.*;
+import java.net.http.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.*;
+import java.util.stream.*;
 
 /**
  * FIXED: Generates quiz questions using Google's Gemini AI API
  * Properly handles JSON parsing and question extraction
  */
 public class GeminiQuestionGenerator {
-    private String apiKey;
+    private List<String> apiKeys;
+    private final String geminiApiUrl;
+    private final String geminiStreamUrl;
+    private final String modelUrl;
+    private final CircuitBreaker circuitBreaker;
+    private final GeminiRequestScheduler scheduler;
+    private final RequestHedger hedger;
+    public static final String DEFAULT_API_BASE_URL = "https://generativelanguage.googleapis.com";
     // Using gemini-2.5-flash - the latest stable model (June 2025)
-    private static final String GEMINI_API_URL = "https://generativelanguage.googleapis.com/v1/models/gemini-2.5-flash:generateContent";
+    private static final String MODEL_PATH = "/v1/models/gemini-2.5-flash";
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(60); // increased for slower connections
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60); // increased for AI processing time
+    private static final Duration PING_TIMEOUT = Duration.ofSeconds(10);
+    // Rough token cost of one generated question, for quota estimates
+    private static final int TOKENS_PER_QUESTION = 150;
+    private static final Pattern TOTAL_TOKENS = Pattern.compile("\"totalTokenCount\"\\s*:\\s*(\\d+)");
+    
+    private static final Metrics.Histogram HEADERS_LATENCY = Metrics.latency("gemini_call_headers_seconds",
+        "Gemini call time to response headers, including any connection setup");
+    private static final Metrics.Histogram FIRST_BYTE_LATENCY = Metrics.latency("gemini_call_first_byte_seconds",
+        "Gemini call time to the first body bytes");
+    private static final Metrics.Histogram CALL_LATENCY = Metrics.latency("gemini_call_seconds",
+        "Gemini call time until the whole response was read");
+    private static final Metrics.Histogram PARSE_LATENCY = Metrics.latency("gemini_parse_seconds",
+        "Time to parse a generateContent response into questions");
+    private static final Metrics.Histogram QUESTIONS_PER_CALL = Metrics.histogram("gemini_questions_per_call",
+        "Questions returned by one Gemini call");
+    private static final Metrics.Counter CALL_ERRORS = Metrics.counter("gemini_call_errors_total",
+        "Gemini calls that failed or returned an error status");
+    
+    // One client for the whole JVM so TLS connections are kept alive and
+    // concurrent generations are multiplexed over HTTP/2
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(CONNECT_TIMEOUT)
+        .build();
+    
+    // Reads streamed responses, which block until the model finishes
+    private static final ExecutorService STREAM_READER = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "gemini-stream-reader");
+        t.setDaemon(true);
+        return t;
+    });
     
     public GeminiQuestionGenerator(String apiKey) {
-        this.apiKey = apiKey;
+        this(apiKey, DEFAULT_API_BASE_URL);
+    }
+    
+    /**
+     * Create a generator against another endpoint, e.g. MockGeminiServer
+     */
+    public GeminiQuestionGenerator(String apiKey, String apiBaseUrl) {
+        this(Collections.singletonList(apiKey), apiBaseUrl);
+    }
+    
+    /**
+     * Create a generator that spreads calls over several API keys.
+     * Generators for the same endpoint share one circuit breaker, one
+     * request scheduler (and with it the keys' quotas and health) and one
+     * hedger.
+     */
+    public GeminiQuestionGenerator(List<String> apiKeys, String apiBaseUrl) {
+        this.apiKeys = new ArrayList<>(apiKeys);
+        String base = apiBaseUrl.endsWith("/") ? apiBaseUrl.substring(0, apiBaseUrl.length() - 1) : apiBaseUrl;
+        this.geminiApiUrl = base + MODEL_PATH + ":generateContent";
+        this.geminiStreamUrl = base + MODEL_PATH + ":streamGenerateContent";
+        this.modelUrl = base + MODEL_PATH;
+        this.circuitBreaker = CircuitBreaker.shared(base);
+        this.scheduler = GeminiRequestScheduler.shared(base);
+        this.hedger = RequestHedger.shared(base);
+        scheduler.setApiKeys(this.apiKeys);
+    }
+    
+    /**
+     * Get the circuit breaker guarding this generator's endpoint
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    /**
+     * Get the scheduler that keeps this generator's endpoint within quota
+     */
+    public GeminiRequestScheduler getScheduler() {
+        return scheduler;
+    }
+    
+    /**
+     * Get the hedger that races slow calls on this generator's endpoint
+     */
+    public RequestHedger getHedger() {
+        return hedger;
+    }
+    
+    /**
+     * Whether a call made now could go out: the circuit is not open and at
+     * least one key is off the bench
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.allowsCalls() && scheduler.getKeyPool().getUsableKeyCount() > 0;
     }
     
     /**
@@ -22,16 +127,17 @@ public class GeminiQuestionGenerator {
         List<Question> questions = new ArrayList<>();
         
         try {
-            String prompt = buildPrompt(domain, difficulty, count);
-            String response = callGeminiAPI(prompt);
-            questions = parseGeminiResponse(response, difficulty);
+            questions = fetchQuestions(domain, difficulty, count);
             
-            if (questions.size() > 0) {
-                System.out.println("✓ Successfully generated " + questions.size() + " questions from Gemini AI");
-            } else {
+            // Successful calls are logged as they complete
+            if (questions.isEmpty()) {
                 System.out.println("✗ No questions generated - check API response");
             }
             
+        } catch (CircuitBreaker.OpenException e) {
+            System.err.println("Skipping generation: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             System.err.println("Error generating questions: " + e.getMessage());
             e.printStackTrace();
@@ -40,6 +146,276 @@ public class GeminiQuestionGenerator {
         return questions;
     }
     
+    public List<Question> fetchQuestions(String domain, String difficulty, int count) throws Exception {
+        return fetchQuestions(domain, difficulty, count, GeminiRequestScheduler.Priority.INTERACTIVE);
+    }
+    
+    /**
+     * Generate questions, reporting failures to the caller instead of
+     * returning an empty list. Waits its turn in the request scheduler, and
+     * fails fast while the circuit is open.
+     *
+     * @throws GeminiApiException if the API returned an error status
+     * @throws CircuitBreaker.OpenException if the endpoint is being given a rest
+     * @throws GeminiRequestScheduler.QueueTimeoutException if the quota stayed saturated
+     *         or every key is benched
+     */
+    public List<Question> fetchQuestions(String domain, String difficulty, int count,
+                                         GeminiRequestScheduler.Priority priority) throws Exception {
+        try {
+            return generateQuestionsAsync(domain, difficulty, count, priority).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+    
+    /**
+     * Generate questions from Gemini AI without blocking the caller.
+     * The future completes exceptionally if the API call or parsing fails.
+     */
+    public CompletableFuture<List<Question>> generateQuestionsAsync(String domain, String difficulty, int count) {
+        return generateQuestionsAsync(domain, difficulty, count, GeminiRequestScheduler.Priority.INTERACTIVE);
+    }
+    
+    /**
+     * Generate questions asynchronously at the given scheduling priority.
+     * Identical background requests still waiting in the scheduler are sent
+     * once, since their questions all land in the same pool. Interactive
+     * requests each feed a different quiz, so they are never merged; an
+     * interactive call slower than most recent ones may be hedged.
+     * Cancelling the future withdraws the request.
+     */
+    public CompletableFuture<List<Question>> generateQuestionsAsync(String domain, String difficulty, int count,
+                                                                   GeminiRequestScheduler.Priority priority) {
+        String prompt = buildPrompt(domain, difficulty, count);
+        String key = priority == GeminiRequestScheduler.Priority.BACKGROUND
+            ? "generate|" + domain + "|" + difficulty + "|" + count
+            : null;
+        long estimatedTokens = estimateTokens(prompt, count);
+        Function<GeminiRequestScheduler.Permit, CompletableFuture<List<Question>>> call =
+            permit -> sendGenerate(prompt, difficulty, permit);
+        
+        CompletableFuture<List<Question>> scheduled = scheduler.submit(priority, key, estimatedTokens,
+            permit -> priority == GeminiRequestScheduler.Priority.INTERACTIVE
+                ? hedge(call.apply(permit), priority, estimatedTokens, call)
+                : call.apply(permit));
+        CompletableFuture<List<Question>> questions = scheduled.thenApply(ArrayList::new);
+        questions.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                scheduled.cancel(true);
+            }
+        });
+        return questions;
+    }
+    
+    /**
+     * Make one generateContent call with a permit's key, and report this
+     * call's outcome to the key even when a hedge decides what the caller
+     * sees. Cancelling the returned future aborts the HTTP exchange.
+     */
+    private CompletableFuture<List<Question>> sendGenerate(String prompt, String difficulty,
+                                                           GeminiRequestScheduler.Permit permit) {
+        long circuitTicket;
+        try {
+            circuitTicket = circuitBreaker.acquire();
+        } catch (CircuitBreaker.OpenException e) {
+            permit.refund();
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        // A hedged caller sees the winner's result, not this call's
+        permit.reportOwnOutcome();
+        long started = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> exchange = HTTP_CLIENT.sendAsync(
+            buildRequest(geminiApiUrl + "?key=" + permit.getApiKey(), prompt),
+            timed(HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8), started));
+        CompletableFuture<List<Question>> questions = exchange
+            .whenComplete((response, error) -> {
+                recordOutcome(error != null ? error : errorFor(response), circuitTicket);
+                if (response == null ? !(error instanceof CancellationException) : response.statusCode() != 200) {
+                    CALL_ERRORS.increment();
+                }
+                if (response != null) {
+                    CALL_LATENCY.recordSince(started);
+                    permit.settle(actualTokens(prompt, response.body()));
+                    if (response.statusCode() == 200) {
+                        hedger.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                    }
+                }
+            })
+            .thenApply(response -> {
+                try {
+                    String body = checkResponse(response);
+                    long parseStarted = System.nanoTime();
+                    List<Question> parsed = parseGeminiResponse(body, difficulty);
+                    PARSE_LATENCY.recordSince(parseStarted);
+                    QUESTIONS_PER_CALL.record(parsed.size());
+                    System.out.println("✓ Successfully generated " + parsed.size() + " questions from Gemini AI");
+                    return parsed;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            });
+        questions.whenComplete((result, error) -> {
+            permit.finish(error);
+            if (error instanceof CancellationException) {
+                exchange.cancel(true);
+            }
+        });
+        return questions;
+    }
+    
+    /**
+     * Race a second, identical call against a primary that runs past the
+     * hedge delay, if the hedge budget allows. The first success wins and
+     * the other call is cancelled; if both fail, the first error is
+     * reported. The hedge queues for quota like any other call.
+     */
+    private CompletableFuture<List<Question>> hedge(CompletableFuture<List<Question>> primary,
+                                                    GeminiRequestScheduler.Priority priority, long estimatedTokens,
+                                                    Function<GeminiRequestScheduler.Permit, CompletableFuture<List<Question>>> call) {
+        long delay = hedger.onCall();
+        if (delay < 0) {
+            return primary;
+        }
+        
+        CompletableFuture<List<Question>> winner = new CompletableFuture<>();
+        List<CompletableFuture<List<Question>>> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger(1);
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        
+        BiConsumer<CompletableFuture<List<Question>>, Boolean> race = (attempt, isHedge) -> {
+            attempts.add(attempt);
+            attempt.whenComplete((questions, error) -> {
+                if (error == null) {
+                    if (winner.complete(questions) && isHedge) {
+                        hedger.onHedgeWon();
+                        System.out.println("Hedged Gemini call answered first");
+                    }
+                    return;
+                }
+                firstFailure.compareAndSet(null, error);
+                if (running.decrementAndGet() == 0) {
+                    winner.completeExceptionally(firstFailure.get());
+                }
+            });
+        };
+        race.accept(primary, false);
+        
+        // The loser (or both, if the caller gave up) is cancelled
+        winner.whenComplete((questions, error) -> attempts.forEach(attempt -> attempt.cancel(true)));
+        
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+            if (winner.isDone() || !hedger.tryHedge()) {
+                return;
+            }
+            running.incrementAndGet();
+            System.out.println("Hedging Gemini call still running after " + delay + "ms");
+            race.accept(scheduler.submit(priority, null, estimatedTokens, call), true);
+            if (winner.isDone()) {
+                attempts.forEach(attempt -> attempt.cancel(true));
+            }
+        });
+        return winner;
+    }
+    
+    /**
+     * Generate questions with streamGenerateContent, handing each question
+     * to onQuestion as soon as the model has finished writing it.
+     * The future completes with every question delivered, in order.
+     */
+    public CompletableFuture<List<Question>> generateQuestionsStreaming(String domain, String difficulty,
+                                                                       int count, Consumer<Question> onQuestion) {
+        String prompt = buildPrompt(domain, difficulty, count);
+        
+        // Each stream feeds its own caller, so streams are never coalesced
+        return scheduler.submit(GeminiRequestScheduler.Priority.INTERACTIVE, null, estimateTokens(prompt, count),
+            permit -> streamQuestions(prompt, difficulty, count, onQuestion, permit));
+    }
+    
+    private CompletableFuture<List<Question>> streamQuestions(String prompt, String difficulty,
+                                                              int count, Consumer<Question> onQuestion,
+                                                              GeminiRequestScheduler.Permit permit) {
+        long circuitTicket;
+        try {
+            circuitTicket = circuitBreaker.acquire();
+        } catch (CircuitBreaker.OpenException e) {
+            permit.refund();
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        HttpRequest request = buildRequest(geminiStreamUrl + "?alt=sse&key=" + permit.getApiKey(), prompt);
+        long started = System.nanoTime();
+        return HTTP_CLIENT.sendAsync(request, timed(HttpResponse.BodyHandlers.ofLines(), started))
+            .whenComplete((response, error) -> {
+                if (error != null) {
+                    recordOutcome(error, circuitTicket);
+                    permit.refund(); // No response, so charge nothing
+                    if (!(error instanceof CancellationException)) {
+                        CALL_ERRORS.increment();
+                    }
+                }
+            })
+            .thenApplyAsync(response -> {
+                try (Stream<String> lines = response.body()) {
+                    if (response.statusCode() != 200) {
+                        String body = lines.collect(Collectors.joining());
+                        permit.settle(actualTokens(prompt, body));
+                        GeminiApiException error = GeminiApiException.fromResponse(response, body);
+                        recordOutcome(error, circuitTicket);
+                        CALL_ERRORS.increment();
+                        CALL_LATENCY.recordSince(started);
+                        throw new CompletionException(error);
+                    }
+                    long[] usage = {prompt.length(), -1}; // Characters seen, tokens reported
+                    
+                    List<Question> questions = new ArrayList<>();
+                    NearDuplicateIndex batch = new NearDuplicateIndex();
+                    StreamingQuestionParser parser = new StreamingQuestionParser(questionJson -> {
+                        Question q = parseQuestion(questionJson, difficulty);
+                        if (q != null && !q.getText().isEmpty() && questions.size() < count && batch.add(q)) {
+                            questions.add(q);
+                            onQuestion.accept(q);
+                        }
+                    });
+                    
+                    // Each server-sent event carries the next slice of model text
+                    try {
+                        lines.forEach(line -> {
+                            usage[0] += line.length();
+                            usage[1] = Math.max(usage[1], reportedTokens(line));
+                            if (line.startsWith("data:")) {
+                                try {
+                                    parser.feed(QuestionBinder.readCandidateText(
+                                        new JsonReader(line, 5, line.length())));
+                                } catch (IOException e) {
+                                    System.err.println("Skipping malformed stream event: " + e.getMessage());
+                                }
+                            }
+                        });
+                    } catch (UncheckedIOException e) {
+                        // The connection broke mid-stream; the tokens so far were still spent
+                        permit.settle(usage[1] >= 0 ? usage[1] : usage[0] / 4);
+                        recordOutcome(e.getCause(), circuitTicket);
+                        CALL_ERRORS.increment();
+                        CALL_LATENCY.recordSince(started);
+                        throw new CompletionException(e.getCause());
+                    }
+                    
+                    recordOutcome(null, circuitTicket);
+                    permit.settle(usage[1] >= 0 ? usage[1] : usage[0] / 4);
+                    CALL_LATENCY.recordSince(started);
+                    QUESTIONS_PER_CALL.record(questions.size());
+                    System.out.println("✓ Streamed " + questions.size() + " questions from Gemini AI");
+                    return questions;
+                }
+            }, STREAM_READER);
+    }
+    
     /**
      * Build the prompt - OPTIMIZED for faster generation
      */
@@ -78,415 +454,223 @@ public class GeminiQuestionGenerator {
     }
     
     /**
-     * Call Gemini API with improved error handling
+     * Build a generateContent or streamGenerateContent request for a prompt
      */
-    private String callGeminiAPI(String prompt) throws Exception {
-        URL url = new URL(GEMINI_API_URL + "?key=" + apiKey);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        
-        try {
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-            conn.setConnectTimeout(60000); // 60 seconds - increased for slower connections
-            conn.setReadTimeout(60000);    // 60 seconds - increased for AI processing time
-            
-            // Build request - escape properly
-            String escapedPrompt = escapeJson(prompt);
-            String requestBody = "{\"contents\":[{\"parts\":[{\"text\":\"" + escapedPrompt + "\"}]}]}";
-            
-            // Send request
-            try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = requestBody.getBytes("utf-8");
-                os.write(input, 0, input.length);
-            }
-            
-            // Check response code
-            int responseCode = conn.getResponseCode();
-            if (responseCode != 200) {
-                String error = readStream(conn.getErrorStream());
-                throw new IOException("API Error " + responseCode + ": " + error);
-            }
-            
-            // Read response
-            String response = readStream(conn.getInputStream());
-            return response;
-            
-        } finally {
-            conn.disconnect();
-        }
+    private HttpRequest buildRequest(String url, String prompt) {
+        // Build request - escape properly
+        String escapedPrompt = escapeJson(prompt);
+        String requestBody = "{\"contents\":[{\"parts\":[{\"text\":\"" + escapedPrompt + "\"}]}]}";
+        
+        return HttpRequest.newBuilder(URI.create(url))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(requestBody, StandardCharsets.UTF_8))
+            .build();
     }
     
     /**
-     * Read stream to string
+     * Wrap a body handler to record the time to headers and to the first
+     * body bytes of a call started at startNanos. java.net.http does not
+     * expose connection setup on its own, so it is part of the headers time.
      */
-    private String readStream(InputStream stream) throws IOException {
-        if (stream == null) return "";
-        
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(stream, "utf-8"))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                response.append(line.trim());
-            }
-        }
-        return response.toString();
+    private static <T> HttpResponse.BodyHandler<T> timed(HttpResponse.BodyHandler<T> handler, long startNanos) {
+        return responseInfo -> {
+            HEADERS_LATENCY.recordSince(startNanos);
+            HttpResponse.BodySubscriber<T> body = handler.apply(responseInfo);
+            return new HttpResponse.BodySubscriber<T>() {
+                private boolean firstBytes = true; // onNext calls are never concurrent
+                
+                @Override
+                public CompletionStage<T> getBody() {
+                    return body.getBody();
+                }
+                
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    body.onSubscribe(subscription);
+                }
+                
+                @Override
+                public void onNext(List<ByteBuffer> item) {
+                    if (firstBytes) {
+                        firstBytes = false;
+                        FIRST_BYTE_LATENCY.recordSince(startNanos);
+                    }
+                    body.onNext(item);
+                }
+                
+                @Override
+                public void onError(Throwable throwable) {
+                    body.onError(throwable);
+                }
+                
+                @Override
+                public void onComplete() {
+                    body.onComplete();
+                }
+            };
+        };
     }
     
     /**
-     * Properly escape JSON string
+     * Return the response body, or throw if the API reported an error
      */
-    private String escapeJson(String text) {
-        return text.replace("\\", "\\\\")
-                   .replace("\"", "\\\"")
-                   .replace("\n", "\\n")
-                   .replace("\r", "\\r")
-                   .replace("\t", "\\t");
+    private String checkResponse(HttpResponse<String> response) throws IOException {
+        GeminiApiException error = errorFor(response);
+        if (error != null) {
+            throw error;
+        }
+        return response.body();
     }
     
     /**
-     * Parse Gemini response - IMPROVED
+     * Expected prompt plus response tokens, at about 4 characters a token
      */
-    private List<Question> parseGeminiResponse(String response, String difficulty) throws Exception {
-        List<Question> questions = new ArrayList<>();
-        
-        try {
-            // Extract the text content from Gemini response
-            String textContent = extractTextFromResponse(response);
-            
-            if (textContent == null || textContent.isEmpty()) {
-                System.err.println("No text content in response");
-                return questions;
-            }
-            
-            // Clean the text - remove markdown if present
-            textContent = cleanJsonText(textContent);
-            
-            // Debug output
-            System.out.println("DEBUG - Extracted JSON: " + textContent.substring(0, Math.min(200, textContent.length())) + "...");
-            
-            // Parse the JSON array
-            questions = parseQuestionsArray(textContent, difficulty);
-            
-        } catch (Exception e) {
-            System.err.println("Error parsing response: " + e.getMessage());
-            System.err.println("Response was: " + response.substring(0, Math.min(500, response.length())));
-            throw e;
-        }
-        
-        return questions;
+    private static long estimateTokens(String prompt, int count) {
+        return prompt.length() / 4 + (long) count * TOKENS_PER_QUESTION;
     }
     
     /**
-     * Extract text from Gemini API response structure
+     * Tokens a call really used: the API's usageMetadata when present,
+     * otherwise estimated from the text sent and received
      */
-    private String extractTextFromResponse(String response) {
-        try {
-            // Find the "text" field in the response
-            int textIndex = response.indexOf("\"text\"");
-            if (textIndex == -1) return null;
-            
-            int colonIndex = response.indexOf(":", textIndex);
-            if (colonIndex == -1) return null;
-            
-            int startQuote = response.indexOf("\"", colonIndex);
-            if (startQuote == -1) return null;
-            
-            // Find the matching end quote (accounting for escaped quotes)
-            int endQuote = findMatchingQuote(response, startQuote + 1);
-            if (endQuote == -1) return null;
-            
-            String text = response.substring(startQuote + 1, endQuote);
-            
-            // Unescape the string
-            text = text.replace("\\n", "\n")
-                       .replace("\\\"", "\"")
-                       .replace("\\\\", "\\");
-            
-            return text;
-        } catch (Exception e) {
-            System.err.println("Error extracting text: " + e.getMessage());
-            return null;
-        }
+    private static long actualTokens(String prompt, String body) {
+        long reported = reportedTokens(body);
+        return reported >= 0 ? reported : (prompt.length() + body.length()) / 4;
     }
     
-    /**
-     * Find matching quote considering escapes
-     */
-    private int findMatchingQuote(String str, int startIndex) {
-        for (int i = startIndex; i < str.length(); i++) {
-            if (str.charAt(i) == '"' && str.charAt(i - 1) != '\\') {
-                return i;
-            }
+    private static long reportedTokens(String text) {
+        Matcher matcher = TOTAL_TOKENS.matcher(text);
+        long reported = -1;
+        while (matcher.find()) {
+            reported = Math.max(reported, Long.parseLong(matcher.group(1)));
         }
-        return -1;
+        return reported;
     }
     
-    /**
-     * Clean JSON text - remove markdown formatting
-     */
-    private String cleanJsonText(String text) {
-        // Remove markdown code blocks
-        text = text.replaceAll("```json\\s*", "");
-        text = text.replaceAll("```\\s*", "");
-        text = text.trim();
-        
-        // Find the actual JSON array
-        int startBracket = text.indexOf('[');
-        int endBracket = text.lastIndexOf(']');
-        
-        if (startBracket != -1 && endBracket != -1 && endBracket > startBracket) {
-            text = text.substring(startBracket, endBracket + 1);
-        }
-        
-        return text;
+    private static GeminiApiException errorFor(HttpResponse<String> response) {
+        return response == null || response.statusCode() == 200 ? null
+            : GeminiApiException.fromResponse(response, response.body());
     }
     
     /**
-     * Parse questions from JSON array string
+     * Tell the circuit breaker how a call went. Only failures that say the
+     * endpoint is unhealthy count; a bad request, an unparseable body, or a
+     * rate limited or refused key (which the key pool deals with) still
+     * means the endpoint answered.
+     *
+     * @param circuitTicket what the circuit breaker's acquire returned for the call
      */
-    private List<Question> parseQuestionsArray(String jsonArray, String difficulty) {
-        List<Question> questions = new ArrayList<>();
-        
-        // Remove outer brackets
-        if (jsonArray.startsWith("[")) {
-            jsonArray = jsonArray.substring(1);
-        }
-        if (jsonArray.endsWith("]")) {
-            jsonArray = jsonArray.substring(0, jsonArray.length() - 1);
+    private void recordOutcome(Throwable error, long circuitTicket) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
         }
         
-        // Split into individual question objects
-        List<String> questionJsons = splitJsonObjects(jsonArray);
-        
-        for (String questionJson : questionJsons) {
-            try {
-                Question q = parseQuestion(questionJson, difficulty);
-                if (q != null && !q.getText().isEmpty()) {
-                    questions.add(q);
-                }
-            } catch (Exception e) {
-                System.err.println("Error parsing question: " + e.getMessage());
+        if (error == null) {
+            circuitBreaker.onSuccess();
+        } else if (error instanceof CancellationException || error instanceof InterruptedException) {
+            circuitBreaker.release(circuitTicket);
+        } else if (error instanceof GeminiApiException) {
+            if (((GeminiApiException) error).isEndpointFailure()) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
             }
+        } else if (error instanceof IOException) {
+            circuitBreaker.onFailure(); // Timeouts and connection failures
+        } else {
+            circuitBreaker.onSuccess();
         }
-        
-        return questions;
     }
     
     /**
-     * Split JSON array into individual objects
+     * Properly escape JSON string
      */
-    private List<String> splitJsonObjects(String jsonContent) {
-        List<String> objects = new ArrayList<>();
-        int depth = 0;
-        int start = 0;
-        boolean inString = false;
-        
-        for (int i = 0; i < jsonContent.length(); i++) {
-            char c = jsonContent.charAt(i);
-            
-            // Track string boundaries
-            if (c == '"' && (i == 0 || jsonContent.charAt(i - 1) != '\\')) {
-                inString = !inString;
-            }
-            
-            if (!inString) {
-                if (c == '{') {
-                    if (depth == 0) {
-                        start = i;
-                    }
-                    depth++;
-                } else if (c == '}') {
-                    depth--;
-                    if (depth == 0) {
-                        objects.add(jsonContent.substring(start, i + 1));
-                    }
-                }
-            }
-        }
-        
-        return objects;
+    private String escapeJson(String text) {
+        return text.replace("\\", "\\\\")
+                   .replace("\"", "\\\"")
+                   .replace("\n", "\\n")
+                   .replace("\r", "\\r")
+                   .replace("\t", "\\t");
     }
     
     /**
-     * Parse a single question object
+     * Parse Gemini response in a single pass
      */
-    private Question parseQuestion(String questionJson, String difficulty) {
+    List<Question> parseGeminiResponse(String response, String difficulty) throws Exception {
         try {
-            String questionText = extractJsonString(questionJson, "question");
-            String optionsArray = extractJsonArray(questionJson, "options");
-            int correctIndex = extractJsonInt(questionJson, "correctIndex");
-            String explanation = extractJsonString(questionJson, "explanation");
-            
-            // Parse options
-            List<String> options = parseOptionsArray(optionsArray);
-            
-            // Validate
-            if (questionText.isEmpty() || options.size() < 4) {
-                System.err.println("Invalid question: text=" + questionText + ", options=" + options.size());
-                return null;
-            }
+            // Extract the text content from Gemini response
+            String textContent = QuestionBinder.readCandidateText(new JsonReader(response));
             
-            if (correctIndex < 0 || correctIndex >= options.size()) {
-                System.err.println("Invalid correctIndex: " + correctIndex);
-                correctIndex = 0; // Default to first option
+            if (textContent.isEmpty()) {
+                System.err.println("No text content in response");
+                return new ArrayList<>();
             }
-             String correctAnswer = options.get(correctIndex);
-        Collections.shuffle(options);
-        int newCorrectIndex = options.indexOf(correctAnswer);
             
-            return new Question(
-                questionText,
-                options,
-                correctIndex,
-                difficulty,
-                QuestionType.MULTIPLE_CHOICE,
-                explanation
-            );
+            return QuestionBinder.readQuestions(textContent, difficulty);
             
-        } catch (Exception e) {
-            System.err.println("Error creating question: " + e.getMessage());
-            return null;
+        } catch (IOException e) {
+            System.err.println("Error parsing response: " + e.getMessage());
+            System.err.println("Response was: " + response.substring(0, Math.min(500, response.length())));
+            throw e;
         }
     }
     
     /**
-     * Extract string value from JSON
-     */
-    private String extractJsonString(String json, String key) {
-        String searchKey = "\"" + key + "\":";
-        int keyIndex = json.indexOf(searchKey);
-        if (keyIndex == -1) return "";
-        
-        int valueStart = json.indexOf("\"", keyIndex + searchKey.length());
-        if (valueStart == -1) return "";
-        
-        int valueEnd = findMatchingQuote(json, valueStart + 1);
-        if (valueEnd == -1) return "";
-        
-        return json.substring(valueStart + 1, valueEnd);
-    }
-    
-    /**
-     * Extract array from JSON
+     * Bind one streamed question object
      */
-    private String extractJsonArray(String json, String key) {
-        String searchKey = "\"" + key + "\":";
-        int keyIndex = json.indexOf(searchKey);
-        if (keyIndex == -1) return "[]";
-        
-        int arrayStart = json.indexOf("[", keyIndex);
-        if (arrayStart == -1) return "[]";
-        
-        int arrayEnd = findMatchingBracket(json, arrayStart);
-        if (arrayEnd == -1) return "[]";
-        
-        return json.substring(arrayStart, arrayEnd + 1);
-    }
-    
-    /**
-     * Extract integer from JSON
-     */
-    private int extractJsonInt(String json, String key) {
-        String searchKey = "\"" + key + "\":";
-        int keyIndex = json.indexOf(searchKey);
-        if (keyIndex == -1) return 0;
-        
-        int valueStart = keyIndex + searchKey.length();
-        while (valueStart < json.length() && !Character.isDigit(json.charAt(valueStart))) {
-            valueStart++;
-        }
-        
-        int valueEnd = valueStart;
-        while (valueEnd < json.length() && Character.isDigit(json.charAt(valueEnd))) {
-            valueEnd++;
-        }
-        
+    private Question parseQuestion(String questionJson, String difficulty) {
         try {
-            return Integer.parseInt(json.substring(valueStart, valueEnd));
-        } catch (Exception e) {
-            return 0;
-        }
-    }
-    
-    /**
-     * Parse options array
-     */
-    private List<String> parseOptionsArray(String arrayJson) {
-        List<String> options = new ArrayList<>();
-        
-        // Remove brackets
-        String content = arrayJson.substring(1, arrayJson.length() - 1).trim();
-        
-        // Split by commas (accounting for strings)
-        boolean inString = false;
-        int start = 0;
-        
-        for (int i = 0; i < content.length(); i++) {
-            char c = content.charAt(i);
-            
-            if (c == '"' && (i == 0 || content.charAt(i - 1) != '\\')) {
-                inString = !inString;
-            } else if (c == ',' && !inString) {
-                String option = content.substring(start, i).trim();
-                if (option.startsWith("\"")) option = option.substring(1);
-                if (option.endsWith("\"")) option = option.substring(0, option.length() - 1);
-                options.add(option);
-                start = i + 1;
-            }
-        }
-        
-        // Add last option
-        if (start < content.length()) {
-            String option = content.substring(start).trim();
-            if (option.startsWith("\"")) option = option.substring(1);
-            if (option.endsWith("\"")) option = option.substring(0, option.length() - 1);
-            options.add(option);
+            return QuestionBinder.readQuestion(new JsonReader(questionJson), difficulty);
+        } catch (IOException e) {
+            System.err.println("Error creating question: " + e.getMessage());
+            return null;
         }
-        
-        return options;
     }
     
     /**
-     * Find matching bracket
+     * Test connection and keys with a models.get call per key, which costs
+     * no generation quota and answers in well under a second. Succeeds if
+     * any key works; keys that fail are reported.
      */
-    private int findMatchingBracket(String str, int startIndex) {
-        int depth = 1;
-        boolean inString = false;
-        
-        for (int i = startIndex + 1; i < str.length(); i++) {
-            char c = str.charAt(i);
-            
-            if (c == '"' && (i == 0 || str.charAt(i - 1) != '\\')) {
-                inString = !inString;
-            } else if (!inString) {
-                if (c == '[') depth++;
-                else if (c == ']') {
-                    depth--;
-                    if (depth == 0) return i;
+    public boolean testConnection() {
+        boolean anyWorks = false;
+        for (String apiKey : apiKeys) {
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(modelUrl + "?key=" + apiKey))
+                    .timeout(PING_TIMEOUT)
+                    .GET()
+                    .build();
+                HttpResponse<String> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    System.err.println("Connection test failed for key " + ApiKeyPool.mask(apiKey)
+                        + ": API Error " + response.statusCode());
+                } else {
+                    anyWorks = true;
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (Exception e) {
+                System.err.println("Connection test failed: " + e.getMessage());
+                return false; // The endpoint itself is unreachable
             }
         }
-        
-        return -1;
+        return anyWorks;
     }
     
     /**
-     * Test connection
+     * Set API key
      */
-    public boolean testConnection() {
-        try {
-            List<Question> test = generateQuestions("General Knowledge", "Easy", 1);
-            return !test.isEmpty();
-        } catch (Exception e) {
-            return false;
-        }
+    public void setApiKey(String apiKey) {
+        setApiKeys(Collections.singletonList(apiKey));
     }
     
     /**
-     * Set API key
+     * Set the API keys calls are spread over
      */
-    public void setApiKey(String apiKey) {
-        this.apiKey = apiKey;
+    public void setApiKeys(List<String> apiKeys) {
+        this.apiKeys = new ArrayList<>(apiKeys);
+        scheduler.setApiKeys(this.apiKeys);
     }
 }
\ No newline at end of file
@@ -0,0 +1,454 @@
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Client-side admission control for one Gemini endpoint, shared by every
+ * generator in the JVM, so many users together stay inside the quota
+ * instead of discovering it through 429s.
+ *
+ * Requests wait in a priority queue: interactive ones (a quiz starting) go
+ * ahead of background ones (pool refills), first-come within a priority.
+ * A dispatcher thread lets the head through once some API key in the
+ * ApiKeyPool has requests-per-minute and tokens-per-minute quota for it,
+ * and the call is made with that key. Token cost is an estimate up front
+ * and is settled against the real usage afterwards.
+ *
+ * An identical request (same coalescing key) that is still queued is not
+ * sent twice: later callers share the queued one's result, and an
+ * interactive caller promotes a queued background request.
+ *
+ * A 429 or a refused key benches only that key; requests keep flowing on
+ * the others. An interactive request is failed at once if every key is
+ * benched for longer than it may wait.
+ */
+public class GeminiRequestScheduler {
+    public enum Priority { INTERACTIVE, BACKGROUND }
+
+    private static final Map<String, GeminiRequestScheduler> SHARED = new ConcurrentHashMap<>();
+
+    /**
+     * An interactive request waited longer than the queue allows
+     */
+    public static class QueueTimeoutException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public QueueTimeoutException(String name, long waitedMillis) {
+            super("Gemini request queue for " + name + " is full; gave up after " + waitedMillis + "ms");
+        }
+
+        public QueueTimeoutException(String name, String reason) {
+            super("Gemini request queue for " + name + " gave up: " + reason);
+        }
+    }
+
+    /**
+     * Handed to a call when it is let through, with the API key to use.
+     * A call that never reaches the API should refund its permit; one that
+     * does may settle it with the tokens it really used. The key's health
+     * is updated from the call's result when it completes, unless the call
+     * reports its own outcome, as it must when that result may be another
+     * call's (a hedge's, say).
+     */
+    public final class Permit {
+        private final ApiKeyPool.Lease lease;
+        private volatile boolean reportsOwnOutcome;
+
+        private Permit(ApiKeyPool.Lease lease) {
+            this.lease = lease;
+        }
+
+        public String getApiKey() {
+            return lease.getApiKey();
+        }
+
+        public void settle(long actualTokens) {
+            lease.settle(actualTokens);
+            signalChanged();
+        }
+
+        public void refund() {
+            lease.refund();
+            signalChanged();
+        }
+
+        /**
+         * Take over reporting this call's outcome with finish(), instead of
+         * having it read from the future the call returns
+         */
+        public void reportOwnOutcome() {
+            reportsOwnOutcome = true;
+        }
+
+        /**
+         * Record how the call made with this key went: null for success,
+         * otherwise its error. A cancelled call says nothing about the key.
+         * Only the first report counts.
+         */
+        public void finish(Throwable error) {
+            if (error instanceof CancellationException) {
+                lease.release();
+            } else {
+                lease.finish(error);
+            }
+            signalChanged();
+        }
+    }
+
+    private final class Pending<T> implements Comparable<Pending<?>> {
+        final long sequence;
+        final String key;
+        final long estimatedTokens;
+        final Function<Permit, CompletableFuture<T>> call;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final long enqueuedAt = System.nanoTime();
+        Priority priority;
+        long deadline;
+        ApiKeyPool.Lease lease;
+        int waiters;
+        volatile boolean abandoned;
+        volatile CompletableFuture<T> response;
+
+        Pending(Priority priority, String key, long estimatedTokens, Function<Permit, CompletableFuture<T>> call) {
+            this.sequence = nextSequence++;
+            this.priority = priority;
+            this.key = key;
+            this.estimatedTokens = estimatedTokens;
+            this.call = call;
+            this.deadline = deadlineFor(priority);
+        }
+
+        @Override
+        public int compareTo(Pending<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+
+        void start() {
+            Permit permit = new Permit(lease);
+            CompletableFuture<T> response;
+            try {
+                response = call.apply(permit);
+            } catch (RuntimeException e) {
+                permit.refund();
+                response = CompletableFuture.failedFuture(e);
+            }
+            this.response = response;
+            if (abandoned) {
+                response.cancel(true);
+            }
+            response.whenComplete((value, error) -> {
+                if (!permit.reportsOwnOutcome) {
+                    permit.finish(error);
+                }
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+    }
+
+    private final String name;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Pending<?>> queue = new PriorityQueue<>();
+    private final Map<String, Pending<?>> queuedByKey = new HashMap<>();
+    private final ApiKeyPool keys = new ApiKeyPool();
+    private long maxWaitNanos = TimeUnit.SECONDS.toNanos(20);
+    private long nextSequence;
+    private Thread dispatcher;
+
+    private long dispatchedCount;
+    private long coalescedCount;
+    private long timedOutCount;
+
+    public GeminiRequestScheduler(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the scheduler shared by every caller of an endpoint in this JVM
+     */
+    public static GeminiRequestScheduler shared(String name) {
+        return SHARED.computeIfAbsent(name, GeminiRequestScheduler::new);
+    }
+
+    /**
+     * Set the quota of each API key; 0 means unlimited
+     *
+     * @param maxWaitMillis longest an interactive request may queue
+     */
+    public void configure(int requestsPerMinute, int tokensPerMinute, long maxWaitMillis) {
+        lock.lock();
+        try {
+            keys.configure(requestsPerMinute, tokensPerMinute);
+            maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Set the API keys calls are spread over
+     */
+    public void setApiKeys(Collection<String> apiKeys) {
+        lock.lock();
+        try {
+            keys.setKeys(apiKeys);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ApiKeyPool getKeyPool() {
+        return keys;
+    }
+
+    /**
+     * Queue a call. It is started once the quota allows, on the dispatcher
+     * thread, so it should only start asynchronous work.
+     *
+     * @param key coalescing key for identical requests, or null for none
+     * @param estimatedTokens expected prompt plus response tokens
+     * @return the call's result, shared with any coalesced callers.
+     *         Cancelling it withdraws the request once no coalesced caller
+     *         still wants it: it leaves the queue, or its call is cancelled.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(Priority priority, String key, long estimatedTokens,
+                                           Function<Permit, CompletableFuture<T>> call) {
+        Pending<T> pending;
+        CompletableFuture<T> copy;
+        lock.lock();
+        try {
+            if (key != null) {
+                Pending<T> queued = (Pending<T>) queuedByKey.get(key);
+                if (queued != null) {
+                    coalescedCount++;
+                    if (priority.compareTo(queued.priority) < 0) {
+                        queue.remove(queued);
+                        queued.priority = priority;
+                        queued.deadline = Math.min(queued.deadline, deadlineFor(priority));
+                        queue.add(queued);
+                        changed.signalAll();
+                    }
+                    return issue(queued);
+                }
+            }
+
+            pending = new Pending<>(priority, key, estimatedTokens, call);
+            if (benchedPastDeadline(pending, System.nanoTime())) {
+                timedOutCount++;
+                return CompletableFuture.failedFuture(new QueueTimeoutException(name, "every API key is benched"));
+            }
+            if (!(queue.isEmpty() && tryCharge(pending))) {
+                queue.add(pending);
+                if (key != null) {
+                    queuedByKey.put(key, pending);
+                }
+                startDispatcher();
+                changed.signalAll();
+                return issue(pending);
+            }
+            copy = issue(pending);
+        } finally {
+            lock.unlock();
+        }
+
+        // Nothing queued and quota to spare: go straight through
+        pending.start();
+        return copy;
+    }
+
+    /**
+     * Hand a caller its own view of a request's result
+     */
+    private <T> CompletableFuture<T> issue(Pending<T> pending) {
+        pending.waiters++;
+        CompletableFuture<T> copy = pending.result.copy();
+        copy.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                abandon(pending);
+            }
+        });
+        return copy;
+    }
+
+    /**
+     * A caller cancelled its view; drop the request if no one else wants it
+     */
+    private void abandon(Pending<?> pending) {
+        CompletableFuture<?> running;
+        lock.lock();
+        try {
+            if (--pending.waiters > 0 || pending.result.isDone()) {
+                return;
+            }
+            if (queue.remove(pending)) {
+                if (pending.key != null) {
+                    queuedByKey.remove(pending.key, pending);
+                }
+                pending.result.cancel(false);
+                changed.signalAll();
+                return;
+            }
+            pending.abandoned = true;
+            running = pending.response;
+        } finally {
+            lock.unlock();
+        }
+        if (running != null) {
+            running.cancel(true);
+        }
+    }
+
+    // ---------------------------------------------------------------- dispatch
+
+    private void startDispatcher() {
+        if (dispatcher == null) {
+            dispatcher = new Thread(this::dispatchLoop, "gemini-scheduler");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (true) {
+            Pending<?> next;
+            lock.lock();
+            try {
+                while (true) {
+                    expireOverdue();
+                    next = queue.peek();
+                    if (next == null) {
+                        changed.await();
+                        continue;
+                    }
+                    if (tryCharge(next)) {
+                        break;
+                    }
+                    long wait = Math.max(1, keys.nanosUntilAvailable(next.estimatedTokens));
+                    changed.awaitNanos(Math.min(wait, Math.max(1, next.deadline - System.nanoTime())));
+                }
+                queue.poll();
+                if (next.key != null) {
+                    queuedByKey.remove(next.key, next);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            next.start();
+        }
+    }
+
+    /**
+     * Lease a key for the request if any has quota for it now
+     */
+    private boolean tryCharge(Pending<?> pending) {
+        pending.lease = keys.lease(pending.estimatedTokens);
+        if (pending.lease == null) {
+            return false;
+        }
+        dispatchedCount++;
+        return true;
+    }
+
+    private void signalChanged() {
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fail interactive requests that have queued past the limit, or that
+     * cannot be sent before it because every key is benched, so a quiz can
+     * fall back instead of waiting on a saturated quota
+     */
+    private void expireOverdue() {
+        long now = System.nanoTime();
+        Iterator<Pending<?>> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            Pending<?> pending = iterator.next();
+            boolean benched = benchedPastDeadline(pending, now);
+            if (now >= pending.deadline || benched) {
+                iterator.remove();
+                if (pending.key != null) {
+                    queuedByKey.remove(pending.key, pending);
+                }
+                timedOutCount++;
+                pending.result.completeExceptionally(benched
+                    ? new QueueTimeoutException(name, "every API key is benched")
+                    : new QueueTimeoutException(name, TimeUnit.NANOSECONDS.toMillis(now - pending.enqueuedAt)));
+            }
+        }
+    }
+
+    private boolean benchedPastDeadline(Pending<?> pending, long now) {
+        long usableIn = keys.nanosUntilUsable();
+        return usableIn > 0 && (usableIn == Long.MAX_VALUE || now + usableIn > pending.deadline);
+    }
+
+    private long deadlineFor(Priority priority) {
+        return priority == Priority.INTERACTIVE ? System.nanoTime() + maxWaitNanos : Long.MAX_VALUE;
+    }
+
+    // ---------------------------------------------------------------- stats
+
+    public int getQueueLength() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDispatchedCount() {
+        lock.lock();
+        try {
+            return dispatchedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Requests answered by an identical queued request instead of their own
+     */
+    public long getCoalescedCount() {
+        lock.lock();
+        try {
+            return coalescedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Interactive requests that gave up waiting in the queue
+     */
+    public long getTimedOutCount() {
+        lock.lock();
+        try {
+            return timedOutCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,429 @@
+import java.io.*;
+
+/**
+ * Single-pass pull tokenizer for JSON.
+ * Reads straight from a Reader or CharSequence through one small buffer,
+ * decodes strings (including \\uXXXX escapes) as it goes and never takes
+ * substrings of the input, so cost grows linearly with payload size.
+ */
+public class JsonReader implements Closeable {
+
+    /**
+     * Kinds of value the reader can be positioned on
+     */
+    public enum Token {
+        BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT,
+        NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    // Scopes on the nesting stack
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Reader in;
+    private final CharSequence source;
+    private final int sourceEnd;
+    private final char[] buffer = new char[1024];
+    private int pos;
+    private int limit;
+
+    private int[] stack = new int[16];
+    private int stackSize;
+
+    private Token peeked;
+    private final StringBuilder scratch = new StringBuilder();
+    private String peekedLiteral;
+
+    public JsonReader(Reader in) {
+        this.in = in;
+        this.source = null;
+        this.sourceEnd = 0;
+        push(EMPTY_DOCUMENT);
+    }
+
+    public JsonReader(CharSequence source) {
+        this(source, 0, source.length());
+    }
+
+    /**
+     * Read only source[start, end), without copying it
+     */
+    public JsonReader(CharSequence source, int start, int end) {
+        this.in = null;
+        this.source = source;
+        this.sourceEnd = end;
+        this.pos = start;
+        this.limit = end;
+        push(EMPTY_DOCUMENT);
+    }
+
+    // ---------------------------------------------------------------- structure
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        peeked = null;
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        peeked = null;
+        stackSize--;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        peeked = null;
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        peeked = null;
+        stackSize--;
+    }
+
+    /**
+     * True if the current array or object has another element
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_ARRAY && token != Token.END_OBJECT && token != Token.END_DOCUMENT;
+    }
+
+    // ------------------------------------------------------------------ values
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        peeked = null;
+        return scratch.toString();
+    }
+
+    /**
+     * Next string value; numbers and booleans are returned as their text
+     */
+    public String nextString() throws IOException {
+        Token token = peek();
+        if (token == Token.STRING) {
+            peeked = null;
+            return scratch.toString();
+        }
+        if (token == Token.NUMBER || token == Token.BOOLEAN) {
+            peeked = null;
+            return peekedLiteral;
+        }
+        throw syntaxError("Expected a string but was " + token);
+    }
+
+    public int nextInt() throws IOException {
+        Token token = peek();
+        String text;
+        if (token == Token.NUMBER) {
+            text = peekedLiteral;
+        } else if (token == Token.STRING) {
+            text = scratch.toString().trim();
+        } else {
+            throw syntaxError("Expected a number but was " + token);
+        }
+
+        try {
+            double value = Double.parseDouble(text);
+            if (value != (int) value) {
+                throw syntaxError("Expected an int but was " + text);
+            }
+            peeked = null;
+            return (int) value;
+        } catch (NumberFormatException e) {
+            throw syntaxError("Expected a number but was " + text);
+        }
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        peeked = null;
+        return peekedLiteral.equals("true");
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        peeked = null;
+    }
+
+    /**
+     * Skip the next value, including any nested arrays or objects
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            Token token = peek();
+            switch (token) {
+                case BEGIN_ARRAY: beginArray(); depth++; break;
+                case BEGIN_OBJECT: beginObject(); depth++; break;
+                case END_ARRAY: endArray(); depth--; break;
+                case END_OBJECT: endObject(); depth--; break;
+                case END_DOCUMENT: return;
+                default: peeked = null;
+            }
+        } while (depth > 0);
+    }
+
+    // --------------------------------------------------------------- tokenizer
+
+    /**
+     * Look at the next token without consuming it
+     */
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+
+        int scope = stack[stackSize - 1];
+        int c;
+
+        if (scope == EMPTY_ARRAY) {
+            stack[stackSize - 1] = NONEMPTY_ARRAY;
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return peeked = Token.END_ARRAY;
+            }
+        } else if (scope == NONEMPTY_ARRAY) {
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return peeked = Token.END_ARRAY;
+            }
+            if (c != ',') {
+                throw syntaxError("Unterminated array");
+            }
+            c = nextNonWhitespace();
+        } else if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT) {
+            stack[stackSize - 1] = DANGLING_NAME;
+            c = nextNonWhitespace();
+            if (c == '}') {
+                return peeked = Token.END_OBJECT;
+            }
+            if (scope == NONEMPTY_OBJECT) {
+                if (c != ',') {
+                    throw syntaxError("Unterminated object");
+                }
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    // Trailing comma
+                    return peeked = Token.END_OBJECT;
+                }
+            }
+            if (c != '"') {
+                throw syntaxError("Expected a name");
+            }
+            readString();
+            return peeked = Token.NAME;
+        } else if (scope == DANGLING_NAME) {
+            stack[stackSize - 1] = NONEMPTY_OBJECT;
+            if (nextNonWhitespace() != ':') {
+                throw syntaxError("Expected ':'");
+            }
+            c = nextNonWhitespace();
+        } else if (scope == EMPTY_DOCUMENT) {
+            stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+            c = nextNonWhitespace();
+        } else {
+            c = nextNonWhitespace();
+            if (c == -1) {
+                return peeked = Token.END_DOCUMENT;
+            }
+        }
+
+        switch (c) {
+            case -1:
+                if (scope == EMPTY_DOCUMENT) {
+                    return peeked = Token.END_DOCUMENT;
+                }
+                throw syntaxError("Unexpected end of input");
+            case '[':
+                return peeked = Token.BEGIN_ARRAY;
+            case '{':
+                return peeked = Token.BEGIN_OBJECT;
+            case ']':
+                if (scope == NONEMPTY_ARRAY) {
+                    // Trailing comma, as models sometimes produce
+                    return peeked = Token.END_ARRAY;
+                }
+                throw syntaxError("Unexpected ']'");
+            case '"':
+                readString();
+                return peeked = Token.STRING;
+            default:
+                readLiteral((char) c);
+                return peeked;
+        }
+    }
+
+    /**
+     * Decode a quoted string into scratch; the opening quote is consumed
+     */
+    private void readString() throws IOException {
+        scratch.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw syntaxError("Unterminated string");
+            }
+            if (c == '"') {
+                return;
+            }
+            if (c != '\\') {
+                scratch.append((char) c);
+                continue;
+            }
+
+            int escaped = read();
+            switch (escaped) {
+                case 'n': scratch.append('\n'); break;
+                case 't': scratch.append('\t'); break;
+                case 'r': scratch.append('\r'); break;
+                case 'b': scratch.append('\b'); break;
+                case 'f': scratch.append('\f'); break;
+                case 'u': scratch.append(readUnicodeEscape()); break;
+                case -1: throw syntaxError("Unterminated escape sequence");
+                default: scratch.append((char) escaped); // \" \\ \/
+            }
+        }
+    }
+
+    private char readUnicodeEscape() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int c = read();
+            int digit = Character.digit(c, 16);
+            if (c == -1 || digit == -1) {
+                throw syntaxError("Malformed \\u escape");
+            }
+            value = (value << 4) | digit;
+        }
+        return (char) value;
+    }
+
+    /**
+     * Read a number, true, false or null starting with first
+     */
+    private void readLiteral(char first) throws IOException {
+        scratch.setLength(0);
+        scratch.append(first);
+        while (true) {
+            int c = peekChar();
+            if (c == -1 || c == ',' || c == ']' || c == '}' || c == ':' || Character.isWhitespace(c)) {
+                break;
+            }
+            scratch.append((char) c);
+            pos++;
+        }
+
+        peekedLiteral = scratch.toString();
+        switch (peekedLiteral) {
+            case "true":
+            case "false":
+                peeked = Token.BOOLEAN;
+                return;
+            case "null":
+                peeked = Token.NULL;
+                return;
+            default:
+                if (first == '-' || (first >= '0' && first <= '9')) {
+                    peeked = Token.NUMBER;
+                    return;
+                }
+                throw syntaxError("Unexpected value " + peekedLiteral);
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return source != null ? source.charAt(pos++) : buffer[pos++];
+    }
+
+    private int peekChar() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return source != null ? source.charAt(pos) : buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        if (source != null) {
+            return pos < sourceEnd;
+        }
+        int count = in.read(buffer, 0, buffer.length);
+        if (count <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = count;
+        return true;
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("Expected " + expected + " but was " + token);
+        }
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            int[] bigger = new int[stackSize * 2];
+            System.arraycopy(stack, 0, bigger, 0, stackSize);
+            stack = bigger;
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    /**
+     * Encode text as a JSON string literal, the inverse of nextString().
+     * Quotes, backslashes and every control character below 0x20 are escaped.
+     */
+    public static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 16).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
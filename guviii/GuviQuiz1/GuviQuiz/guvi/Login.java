@@ -314,9 +314,8 @@ public class Login extends JFrame {
         }
         
         UserProfile profile = UserProfile.loadProfile(username);
-        profile.setPreferredDifficulty(difficultyCombo.getSelectedItem().toString());
-        profile.setPreferredTheme(themeCombo.getSelectedItem().toString());
-        profile.saveProfile();
+        profile.updatePreferences(difficultyCombo.getSelectedItem().toString(),
+                                  themeCombo.getSelectedItem().toString());
         
         String domain = domainCombo.getSelectedItem().toString();
         String difficulty = difficultyCombo.getSelectedItem().toString();
@@ -455,13 +454,10 @@ public class Login extends JFrame {
         
         if (profile.getTotalQuizzesTaken() > 0) {
             for (String domain : questionBank.getAvailableDomains()) {
-                List<QuizResult> results = profile.getResultsForDomain(domain);
-                if (!results.isEmpty()) {
-                    double avg = results.stream()
-                        .mapToDouble(QuizResult::getPercentageScore)
-                        .average().orElse(0);
-                    
-                    JLabel domainLabel = new JLabel(String.format("%s: %.1f%%", domain, avg));
+                ScoreStats stats = profile.getScoreStats(domain);
+                if (stats.getCount() > 0) {
+                    JLabel domainLabel = new JLabel(String.format("%s: %.1f%% (best %.0f%%, %d taken)",
+                        domain, stats.getAverage(), stats.getBest(), stats.getCount()));
                     domainLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
                     content.add(domainLabel);
                     content.add(Box.createVerticalStrut(5));
@@ -0,0 +1,394 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Read-only, memory-mapped question corpus in a columnar layout (.qzs).
+ * Opening a store maps the file and reads a 64-byte header and two small
+ * dictionaries, so it takes milliseconds however many questions it holds,
+ * and the questions themselves never occupy the heap: the OS pages them in
+ * on demand. A Question is only built when get() is called.
+ *
+ * File layout:
+ *   header      magic "QZQS", version, question and string counts, section offsets
+ *   arena       every string, UTF-8, back to back
+ *   offsets     long[strings + 1], arena-relative start of each string
+ *   columns     int    first string of each question (text, options..., explanation)
+ *               short  domain id      byte difficulty id   byte type ordinal
+ *               byte   correct index  byte option count
+ *   dictionary  domain and difficulty names
+ *
+ * Files larger than one mapping are mapped in overlapping 1GB segments.
+ */
+public class MappedQuestionStore implements Closeable {
+    private static final byte[] MAGIC = {'Q', 'Z', 'Q', 'S'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+    private static final int SEGMENT_OVERLAP = 1 << 16; // Values shorter than this never straddle segments
+    private static final QuestionType[] TYPES = QuestionType.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int questionCount;
+    private final long offsetsStart;
+    private final long arenaStart;
+    private final long firstStringColumn;
+    private final long domainColumn;
+    private final long difficultyColumn;
+    private final long typeColumn;
+    private final long correctColumn;
+    private final long optionCountColumn;
+    private final String[] domains;
+    private final String[] difficulties;
+
+    private MappedQuestionStore(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long fileSize = channel.size();
+        int segmentCount = (int) ((fileSize + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+        this.segments = new MappedByteBuffer[Math.max(1, segmentCount)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_BITS;
+            long length = Math.min(fileSize - start, SEGMENT_SIZE + SEGMENT_OVERLAP);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.max(0, length));
+        }
+
+        if (fileSize < HEADER_SIZE) {
+            throw new IOException("not a question store");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (getByte(i) != MAGIC[i]) {
+                throw new IOException("not a question store");
+            }
+        }
+        if (getByte(4) != VERSION) {
+            throw new IOException("unsupported question store version " + getByte(4));
+        }
+
+        this.questionCount = (int) getLong(8);
+        long stringCount = getLong(16);
+        this.arenaStart = getLong(24);
+        this.offsetsStart = getLong(32);
+        long columnsStart = getLong(40);
+        long dictionaryStart = getLong(48);
+
+        this.firstStringColumn = columnsStart;
+        this.domainColumn = firstStringColumn + 4L * questionCount;
+        this.difficultyColumn = domainColumn + 2L * questionCount;
+        this.typeColumn = difficultyColumn + questionCount;
+        this.correctColumn = typeColumn + questionCount;
+        this.optionCountColumn = correctColumn + questionCount;
+
+        if (offsetsStart + 8 * (stringCount + 1) > fileSize || dictionaryStart > fileSize) {
+            throw new IOException("question store is truncated");
+        }
+
+        DataInputStream dictionary = new DataInputStream(new ByteArrayInputStream(
+            readBytes(dictionaryStart, (int) (fileSize - dictionaryStart))));
+        this.domains = readDictionary(dictionary);
+        this.difficulties = readDictionary(dictionary);
+    }
+
+    /**
+     * Map a store file for reading
+     */
+    public static MappedQuestionStore open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new MappedQuestionStore(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return questionCount;
+    }
+
+    // ---------------------------------------------------------------- columns
+
+    public String getDomain(int index) {
+        return domains[getShort(domainColumn + 2L * index)];
+    }
+
+    public String getDifficulty(int index) {
+        return difficulties[getByte(difficultyColumn + index) & 0xFF];
+    }
+
+    public QuestionType getType(int index) {
+        return TYPES[getByte(typeColumn + index)];
+    }
+
+    public String getText(int index) {
+        return getString(getInt(firstStringColumn + 4L * index));
+    }
+
+    /**
+     * Build the question at an index, decoding its strings straight from
+     * the mapped file
+     */
+    public Question get(int index) {
+        Objects.checkIndex(index, questionCount);
+        int firstString = getInt(firstStringColumn + 4L * index);
+        int optionCount = getByte(optionCountColumn + index) & 0xFF;
+
+        List<String> options = new ArrayList<>(optionCount);
+        for (int i = 0; i < optionCount; i++) {
+            options.add(getString(firstString + 1 + i));
+        }
+        String explanation = getString(firstString + 1 + optionCount);
+
+        return new Question(getString(firstString), options, getByte(correctColumn + index),
+            getDifficulty(index), getType(index), explanation.isEmpty() ? null : explanation);
+    }
+
+    private String getString(int stringIndex) {
+        long start = getLong(offsetsStart + 8L * stringIndex);
+        long end = getLong(offsetsStart + 8L * (stringIndex + 1));
+        int length = (int) (end - start);
+        long position = arenaStart + start;
+
+        if (length < SEGMENT_OVERLAP) {
+            ByteBuffer slice = segments[(int) (position >>> SEGMENT_BITS)].duplicate();
+            int offset = (int) (position & (SEGMENT_SIZE - 1));
+            slice.limit(offset + length).position(offset);
+            return StandardCharsets.UTF_8.decode(slice).toString();
+        }
+        return new String(readBytes(position, length), StandardCharsets.UTF_8);
+    }
+
+    // ---------------------------------------------------------------- raw access
+
+    private byte getByte(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    private short getShort(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getShort((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    private int getInt(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getInt((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    private long getLong(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getLong((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    private byte[] readBytes(long position, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = getByte(position + i);
+        }
+        return bytes;
+    }
+
+    private static String[] readDictionary(DataInputStream in) throws IOException {
+        String[] names = new String[in.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = in.readUTF();
+        }
+        return names;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // ---------------------------------------------------------------- writing
+
+    /**
+     * Write questions to a new store file, via a temp file so readers never
+     * see a partial store. Strings and their offsets stream straight to disk;
+     * only the fixed-width columns (10 bytes per question) are held in memory
+     * while writing.
+     *
+     * @param domainOf domain of each question
+     */
+    public static void write(File file, Iterable<Question> questions,
+                             java.util.function.Function<Question, String> domainOf) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        File offsetsFile = new File(file.getPath() + ".offsets.tmp");
+        Map<String, Integer> domainIds = new LinkedHashMap<>();
+        Map<String, Integer> difficultyIds = new LinkedHashMap<>();
+
+        int count = 0;
+        int[] firstString = new int[1024];
+        short[] domainColumn = new short[1024];
+        byte[] difficultyColumn = new byte[1024];
+        byte[] typeColumn = new byte[1024];
+        byte[] correctColumn = new byte[1024];
+        byte[] optionCountColumn = new byte[1024];
+        int strings = 0;
+        long arenaLength = 0;
+        long arenaStart = HEADER_SIZE;
+        long offsetsStart;
+        long columnsStart;
+        long dictionaryStart;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16))) {
+            out.write(new byte[HEADER_SIZE]);
+
+            try (DataOutputStream offsets = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(offsetsFile), 1 << 16))) {
+                for (Question question : questions) {
+                    if (!canStore(question)) {
+                        continue;
+                    }
+                    List<String> options = question.getOptions();
+                    if (count == firstString.length) {
+                        int capacity = count * 2;
+                        firstString = Arrays.copyOf(firstString, capacity);
+                        domainColumn = Arrays.copyOf(domainColumn, capacity);
+                        difficultyColumn = Arrays.copyOf(difficultyColumn, capacity);
+                        typeColumn = Arrays.copyOf(typeColumn, capacity);
+                        correctColumn = Arrays.copyOf(correctColumn, capacity);
+                        optionCountColumn = Arrays.copyOf(optionCountColumn, capacity);
+                    }
+
+                    firstString[count] = strings;
+                    domainColumn[count] = (short) dictionaryId(domainIds, domainOf.apply(question), Short.MAX_VALUE);
+                    difficultyColumn[count] = (byte) dictionaryId(difficultyIds, question.getDifficulty(), 255);
+                    QuestionType type = question.getType() != null ? question.getType() : QuestionType.MULTIPLE_CHOICE;
+                    typeColumn[count] = (byte) type.ordinal();
+                    correctColumn[count] = (byte) question.getCorrectOptionIndex();
+                    optionCountColumn[count] = (byte) options.size();
+                    count++;
+
+                    List<String> questionStrings = new ArrayList<>(options.size() + 2);
+                    questionStrings.add(question.getText());
+                    questionStrings.addAll(options);
+                    questionStrings.add(question.getExplanation());
+                    for (String string : questionStrings) {
+                        byte[] bytes = (string == null ? "" : string).getBytes(StandardCharsets.UTF_8);
+                        offsets.writeLong(arenaLength);
+                        strings++;
+                        out.write(bytes);
+                        arenaLength += bytes.length;
+                    }
+                }
+                offsets.writeLong(arenaLength);
+            }
+
+            offsetsStart = align(arenaStart + arenaLength, out);
+            Files.copy(offsetsFile.toPath(), out);
+            columnsStart = offsetsStart + 8L * (strings + 1);
+            for (int i = 0; i < count; i++) out.writeInt(firstString[i]);
+            for (int i = 0; i < count; i++) out.writeShort(domainColumn[i]);
+            out.write(difficultyColumn, 0, count);
+            out.write(typeColumn, 0, count);
+            out.write(correctColumn, 0, count);
+            out.write(optionCountColumn, 0, count);
+            dictionaryStart = columnsStart + 10L * count;
+            writeDictionary(out, domainIds.keySet());
+            writeDictionary(out, difficultyIds.keySet());
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        } finally {
+            offsetsFile.delete();
+        }
+
+        // The header goes in last, so a store only looks valid once complete
+        try (RandomAccessFile header = new RandomAccessFile(tempFile, "rw")) {
+            header.write(MAGIC);
+            header.writeByte(VERSION);
+            header.seek(8);
+            header.writeLong(count);
+            header.writeLong(strings);
+            header.writeLong(arenaStart);
+            header.writeLong(offsetsStart);
+            header.writeLong(columnsStart);
+            header.writeLong(dictionaryStart);
+            header.getFD().sync();
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        if (!tempFile.renameTo(file)) {
+            file.delete();
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+        }
+    }
+
+    private static int dictionaryId(Map<String, Integer> ids, String name, int max) throws IOException {
+        Integer id = ids.get(name == null ? "" : name);
+        if (id == null) {
+            if (ids.size() > max) {
+                throw new IOException("Too many distinct names for a question store column");
+            }
+            id = ids.size();
+            ids.put(name == null ? "" : name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Whether write() can store a question; it skips any it cannot
+     */
+    public static boolean canStore(Question question) {
+        return question.getOptions().size() <= 255 && question.getCorrectOptionIndex() <= 127;
+    }
+
+    // Pad the stream to an 8-byte boundary so the long offsets are aligned
+    private static long align(long position, DataOutputStream out) throws IOException {
+        long aligned = (position + 7) & ~7L;
+        for (long p = position; p < aligned; p++) {
+            out.writeByte(0);
+        }
+        return aligned;
+    }
+
+    private static void writeDictionary(DataOutputStream out, Collection<String> names) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    /**
+     * Convert serialized question corpora (like questions/*.dat or pool
+     * files) into one mapped store; each file's name is its domain
+     *
+     * Usage: java MappedQuestionStore output.qzs input.dat...
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: java MappedQuestionStore output.qzs input.dat...");
+            return;
+        }
+
+        List<Question> questions = new ArrayList<>();
+        Map<Question, String> domainOf = new IdentityHashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            File input = new File(args[i]);
+            String domain = input.getName().replaceFirst("\\.dat$", "");
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(input)))) {
+                @SuppressWarnings("unchecked")
+                List<Question> corpus = (List<Question>) in.readObject();
+                for (Question question : corpus) {
+                    if (question != null && question.getText() != null && question.getOptions() != null) {
+                        questions.add(question);
+                        domainOf.put(question, domain);
+                    }
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        write(new File(args[0]), questions, domainOf::get);
+        System.out.printf("Wrote %d questions to %s in %.1f ms%n",
+            questions.size(), args[0], (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,238 @@
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process metrics for the hot paths: counters and histograms, exported
+ * as Prometheus text (QuizServer serves it at GET /metrics) and optionally
+ * dumped to the console at a fixed interval.
+ *
+ * Recording never takes a lock. Counters are LongAdders. Histograms keep
+ * HDR-style log-linear buckets, 16 per power of two, so any percentile is
+ * within about 6% of the true value over the whole range of a long; they
+ * are exported as summaries with p50, p90 and p99.
+ */
+public class Metrics {
+    private static final Map<String, Metric> METRICS = new ConcurrentSkipListMap<>();
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static ScheduledExecutorService dumper;
+
+    private interface Metric {
+        void writePrometheus(StringBuilder out);
+
+        String describe();
+    }
+
+    /**
+     * A count that only goes up
+     */
+    public static final class Counter implements Metric {
+        private final String name;
+        private final String help;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        public void writePrometheus(StringBuilder out) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(get()).append('\n');
+        }
+
+        @Override
+        public String describe() {
+            return name + " " + get();
+        }
+    }
+
+    /**
+     * Distribution of recorded values. A latency histogram records
+     * nanoseconds and exports seconds.
+     */
+    public static final class Histogram implements Metric {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final String name;
+        private final String help;
+        private final double unitsPerExported;
+        private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram(String name, String help, double unitsPerExported) {
+            this.name = name;
+            this.help = help;
+            this.unitsPerExported = unitsPerExported;
+        }
+
+        public void record(long value) {
+            value = Math.max(0, value);
+            buckets.incrementAndGet(bucketOf(value));
+            count.increment();
+            sum.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        /**
+         * Record the nanoseconds elapsed since a System.nanoTime() reading
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Value at a quantile (0..1), in recorded units; 0 if empty
+         */
+        public long quantile(double quantile) {
+            long[] counts = new long[buckets.length()];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            for (int i = 0; i < counts.length; i++) {
+                rank -= counts[i];
+                if (rank <= 0) {
+                    return Math.min(max.get(), midpointOf(i));
+                }
+            }
+            return max.get();
+        }
+
+        // Values below 16 get a bucket each; above, each power of two is
+        // split into 16 equal sub-buckets
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        }
+
+        static long midpointOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKETS - 1;
+            long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+            return low + ((1L << shift) - 1) / 2;
+        }
+
+        private double exported(long value) {
+            return value / unitsPerExported;
+        }
+
+        @Override
+        public void writePrometheus(StringBuilder out) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (double q : QUANTILES) {
+                out.append(name).append("{quantile=\"").append(q).append("\"} ").append(exported(quantile(q))).append('\n');
+            }
+            out.append(name).append("_sum ").append(exported(sum.sum())).append('\n');
+            out.append(name).append("_count ").append(getCount()).append('\n');
+        }
+
+        @Override
+        public String describe() {
+            // Latencies read best in milliseconds
+            double scale = unitsPerExported == 1e9 ? 1e6 : unitsPerExported;
+            String unit = unitsPerExported == 1e9 ? "ms" : "";
+            return String.format("%s n=%d p50=%.1f%s p90=%.1f%s p99=%.1f%s max=%.1f%s", name, getCount(),
+                quantile(0.5) / scale, unit, quantile(0.9) / scale, unit, quantile(0.99) / scale, unit,
+                max.get() / scale, unit);
+        }
+    }
+
+    /**
+     * Get or register a counter
+     */
+    public static Counter counter(String name, String help) {
+        return (Counter) METRICS.computeIfAbsent(name, n -> new Counter(n, help));
+    }
+
+    /**
+     * Get or register a histogram of nanosecond latencies, exported in seconds
+     */
+    public static Histogram latency(String name, String help) {
+        return (Histogram) METRICS.computeIfAbsent(name, n -> new Histogram(n, help, 1e9));
+    }
+
+    /**
+     * Get or register a histogram of plain values, such as sizes
+     */
+    public static Histogram histogram(String name, String help) {
+        return (Histogram) METRICS.computeIfAbsent(name, n -> new Histogram(n, help, 1));
+    }
+
+    /**
+     * Every metric in the Prometheus text exposition format
+     */
+    public static String toPrometheusText() {
+        StringBuilder out = new StringBuilder();
+        for (Metric metric : METRICS.values()) {
+            metric.writePrometheus(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Print every metric that has recorded something to the console every
+     * intervalSeconds; 0 turns the dump off
+     */
+    public static synchronized void startPeriodicDump(long intervalSeconds) {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+        if (intervalSeconds <= 0) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(Metrics::dump, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private static void dump() {
+        StringBuilder out = new StringBuilder("--- metrics ---\n");
+        for (Metric metric : METRICS.values()) {
+            boolean recorded = metric instanceof Counter ? ((Counter) metric).get() > 0
+                : ((Histogram) metric).getCount() > 0;
+            if (recorded) {
+                out.append(metric.describe()).append('\n');
+            }
+        }
+        System.out.print(out);
+    }
+}
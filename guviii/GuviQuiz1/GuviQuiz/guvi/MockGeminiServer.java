@@ -0,0 +1,347 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.regex.*;
+
+/**
+ * Local stand-in for the Gemini API, for load and latency testing without
+ * spending quota. Speaks the generateContent and streamGenerateContent
+ * (alt=sse) wire format and can inject latency, 429/500 errors, truncated
+ * or malformed bodies and a throughput cap.
+ *
+ * Usage: java MockGeminiServer [port]
+ * Then run the app with -Dgemini.api.base.url=http://localhost:PORT
+ */
+public class MockGeminiServer {
+    private static final String MODEL_NAME = "gemini-2.5-flash";
+    private static final Pattern PROMPT_PATTERN =
+        Pattern.compile("Generate (\\d+) quiz questions about (.*?) \\((\\w+) level\\)");
+    private static final Pattern KEY_PARAMETER = Pattern.compile("(?:^|&)key=([^&]*)");
+
+    /**
+     * Shape of the simulated response time
+     */
+    public enum LatencyDistribution {
+        FIXED,       // always the median
+        UNIFORM,     // uniform between median and p99
+        LOG_NORMAL   // long-tailed, fitted to median and p99
+    }
+
+    private final HttpServer server;
+    private final AtomicLong questionCounter = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    private volatile LatencyDistribution latencyDistribution = LatencyDistribution.FIXED;
+    private volatile double medianLatencyMillis = 0;
+    private volatile double p99LatencyMillis = 0;
+    private volatile double rateLimitErrorRate = 0;
+    private volatile double serverErrorRate = 0;
+    private volatile double truncatedBodyRate = 0;
+    private volatile double malformedBodyRate = 0;
+    private volatile int retryAfterSeconds = 1;
+    private volatile int maxRequestsPerSecond = 0;
+    private volatile int maxRequestsPerMinute = 0;
+
+    // Throughput cap, as a simple per-second window
+    private long windowStartMillis;
+    private int windowRequests;
+    // Accept times within the last minute per API key, for the per-minute cap
+    private final Map<String, Deque<Long>> minuteWindows = new HashMap<>();
+
+    public MockGeminiServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "mock-gemini");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * Base URL to hand to GeminiQuestionGenerator
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void setLatency(LatencyDistribution distribution, double medianMillis, double p99Millis) {
+        this.latencyDistribution = distribution;
+        this.medianLatencyMillis = medianMillis;
+        this.p99LatencyMillis = Math.max(medianMillis, p99Millis);
+    }
+
+    public void setErrorRates(double rateLimitErrorRate, double serverErrorRate) {
+        this.rateLimitErrorRate = rateLimitErrorRate;
+        this.serverErrorRate = serverErrorRate;
+    }
+
+    public void setBadBodyRates(double truncatedBodyRate, double malformedBodyRate) {
+        this.truncatedBodyRate = truncatedBodyRate;
+        this.malformedBodyRate = malformedBodyRate;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Cap accepted requests per second; excess requests get 429. 0 = no cap.
+     */
+    public void setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    /**
+     * Cap accepted requests per API key in any sliding 60-second window,
+     * the way the Gemini RPM quota works; excess requests get 429. 0 = no cap.
+     */
+    public void setMaxRequestsPerMinute(int maxRequestsPerMinute) {
+        this.maxRequestsPerMinute = maxRequestsPerMinute;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getQuery();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+            if ("GET".equals(exchange.getRequestMethod()) && path.endsWith(MODEL_NAME)) {
+                handleModelInfo(exchange);
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+
+            if (!admit(apiKey(query))) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+                sendError(exchange, 429, "Resource has been exhausted (e.g. check quota).");
+                return;
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double roll = random.nextDouble();
+            if (roll < rateLimitErrorRate) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+                sendError(exchange, 429, "Resource has been exhausted (e.g. check quota).");
+                return;
+            }
+            if (roll < rateLimitErrorRate + serverErrorRate) {
+                sleep(sampleLatencyMillis());
+                sendError(exchange, 500, "An internal error has occurred.");
+                return;
+            }
+
+            Matcher prompt = PROMPT_PATTERN.matcher(body);
+            boolean matched = prompt.find();
+            int count = matched ? Integer.parseInt(prompt.group(1)) : 5;
+            String domain = matched ? prompt.group(2) : "General Knowledge";
+
+            if (path.endsWith(":streamGenerateContent")) {
+                handleStream(exchange, domain, count, query != null && query.contains("alt=sse"));
+            } else if (path.endsWith(":generateContent")) {
+                handleGenerate(exchange, domain, count);
+            } else {
+                sendError(exchange, 404, "Unknown method " + path);
+            }
+        } catch (IOException e) {
+            // Client went away mid-response; nothing to do
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * models.get, used by the startup connectivity check
+     */
+    private void handleModelInfo(HttpExchange exchange) throws IOException {
+        byte[] bytes = ("{\"name\": \"models/" + MODEL_NAME + "\", \"displayName\": \"Mock Gemini\"}")
+            .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void handleGenerate(HttpExchange exchange, String domain, int count) throws IOException {
+        sleep(sampleLatencyMillis());
+
+        String modelText = buildModelText(domain, count);
+        String body = envelope(maybeMalform(modelText));
+        if (ThreadLocalRandom.current().nextDouble() < truncatedBodyRate) {
+            body = body.substring(0, body.length() / 2);
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Send the model text in several events, spreading the latency across
+     * them the way a real streamed generation arrives
+     */
+    private void handleStream(HttpExchange exchange, String domain, int count, boolean sse) throws IOException {
+        String modelText = maybeMalform(buildModelText(domain, count));
+        boolean truncate = ThreadLocalRandom.current().nextDouble() < truncatedBodyRate;
+
+        int chunks = Math.max(2, count);
+        int chunkSize = (modelText.length() + chunks - 1) / chunks;
+        long delayPerChunk = (long) (sampleLatencyMillis() / chunks);
+
+        exchange.getResponseHeaders().set("Content-Type", sse ? "text/event-stream" : "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            int sent = 0;
+            for (int start = 0; start < modelText.length(); start += chunkSize) {
+                if (truncate && sent >= chunks / 2) {
+                    break;
+                }
+                sleep(delayPerChunk);
+                String chunk = modelText.substring(start, Math.min(modelText.length(), start + chunkSize));
+                String event = sse ? "data: " + envelope(chunk) + "\r\n\r\n" : envelope(chunk) + "\n";
+                out.write(event.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                sent++;
+            }
+        }
+    }
+
+    private static String apiKey(String query) {
+        Matcher matcher = KEY_PARAMETER.matcher(query != null ? query : "");
+        return matcher.find() ? matcher.group(1) : "";
+    }
+
+    private synchronized boolean admit(String apiKey) {
+        long now = System.currentTimeMillis();
+        Deque<Long> minuteWindow = minuteWindows.computeIfAbsent(apiKey, k -> new ArrayDeque<>());
+        if (maxRequestsPerMinute > 0) {
+            while (!minuteWindow.isEmpty() && now - minuteWindow.peekFirst() >= 60_000) {
+                minuteWindow.pollFirst();
+            }
+            if (minuteWindow.size() >= maxRequestsPerMinute) {
+                return false;
+            }
+        }
+        if (maxRequestsPerSecond <= 0) {
+            if (maxRequestsPerMinute > 0) {
+                minuteWindow.addLast(now);
+            }
+            return true;
+        }
+        if (now - windowStartMillis >= 1000) {
+            windowStartMillis = now;
+            windowRequests = 0;
+        }
+        if (++windowRequests > maxRequestsPerSecond) {
+            return false;
+        }
+        if (maxRequestsPerMinute > 0) {
+            minuteWindow.addLast(now);
+        }
+        return true;
+    }
+
+    private double sampleLatencyMillis() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (latencyDistribution) {
+            case UNIFORM:
+                return medianLatencyMillis + random.nextDouble() * (p99LatencyMillis - medianLatencyMillis);
+            case LOG_NORMAL:
+                if (medianLatencyMillis <= 0) return 0;
+                // p99 sits 2.326 standard deviations above the median
+                double sigma = Math.log(p99LatencyMillis / medianLatencyMillis) / 2.326;
+                return medianLatencyMillis * Math.exp(sigma * random.nextGaussian());
+            default:
+                return medianLatencyMillis;
+        }
+    }
+
+    private String buildModelText(String domain, int count) {
+        StringBuilder text = new StringBuilder("```json\n[\n");
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            long id = questionCounter.incrementAndGet();
+            if (i > 0) text.append(",\n");
+            text.append("  {\"question\": \"Mock question ").append(id).append(" about ").append(domain)
+                .append(" with id ").append(Long.toHexString(random.nextLong())).append("?\", ")
+                .append("\"options\": [\"Answer ").append(id).append("\", \"Distractor A\", ")
+                .append("\"Distractor B\", \"Distractor C\"], ")
+                .append("\"correctIndex\": 0, ")
+                .append("\"explanation\": \"Answer ").append(id).append(" is correct by construction.\"}");
+        }
+        return text.append("\n]\n```").toString();
+    }
+
+    private String maybeMalform(String modelText) {
+        if (ThreadLocalRandom.current().nextDouble() >= malformedBodyRate) {
+            return modelText;
+        }
+        // Drop the closing brackets and mangle a field name
+        return modelText.replace("\"options\"", "\"opt").replace("]\n```", "");
+    }
+
+    private static String envelope(String modelText) {
+        return "{\"candidates\": [{\"content\": {\"parts\": [{\"text\": " + JsonReader.quote(modelText) + "}], "
+            + "\"role\": \"model\"}, \"finishReason\": \"STOP\", \"index\": 0}], "
+            + "\"modelVersion\": \"mock-gemini\"}";
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        errorCount.incrementAndGet();
+        byte[] bytes = ("{\"error\": {\"code\": " + status + ", \"message\": " + JsonReader.quote(message) + "}}")
+            .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(double millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep((long) millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        MockGeminiServer mock = new MockGeminiServer(port);
+        mock.setLatency(LatencyDistribution.LOG_NORMAL, 2000, 20000);
+        mock.start();
+        System.out.println("Mock Gemini listening on " + mock.getBaseUrl());
+        System.out.println("Run the app with -Dgemini.api.base.url=" + mock.getBaseUrl());
+        Thread.currentThread().join();
+    }
+}
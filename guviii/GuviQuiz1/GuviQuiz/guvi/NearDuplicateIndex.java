@@ -0,0 +1,318 @@
+import java.util.*;
+
+/**
+ * Rejects questions that are near-duplicates (e.g. paraphrases) of ones
+ * already indexed, using MinHash signatures and locality-sensitive hashing.
+ *
+ * Each question is reduced to character 5-gram shingles of its normalized
+ * text plus its correct answer. A 48-value MinHash signature estimates the
+ * Jaccard similarity of two shingle sets. Signatures are cut into 12 bands
+ * of 4 values, and questions sharing any band hash become candidates. A
+ * candidate is rejected if its estimated similarity is at least
+ * SIMILARITY_THRESHOLD. A pair at similarity 0.7 collides in some band
+ * about 96% of the time; unrelated questions almost never do.
+ *
+ * Storage is mostly primitive arrays (a 48-byte signature plus 12 chained
+ * band entries, under 300 bytes per question with bookkeeping), so an index
+ * can hold millions of questions. Lookups touch only the matching buckets.
+ *
+ * Not thread-safe; callers guard it with whatever lock protects the
+ * questions it describes.
+ */
+public class NearDuplicateIndex {
+    static final double SIMILARITY_THRESHOLD = 0.7;
+    private static final int SHINGLE_LENGTH = 5;
+    private static final int BANDS = 12;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+    private static final long[] MULTIPLIERS = new long[HASHES];
+    private static final long[] ADDENDS = new long[HASHES];
+
+    static {
+        // Fixed seed so signatures are comparable across runs
+        SplittableRandom random = new SplittableRandom(0x5eed_a11_d0e5L);
+        for (int i = 0; i < HASHES; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            ADDENDS[i] = random.nextLong();
+        }
+    }
+
+    // Question id i owns signatures[i * HASHES ..] and band entries i * BANDS + band
+    private byte[] signatures = new byte[16 * HASHES];
+    private int[] bandKeys = new int[16 * BANDS];
+    private int[] nextEntry = new int[16 * BANDS];
+    private int[] buckets = newBuckets(64);
+    private final BitSet removed = new BitSet();
+    private final Map<Question, Integer> ids = new IdentityHashMap<>();
+    private int size;
+    private int removedCount;
+
+    /**
+     * Index a question unless it is a near-duplicate of one already indexed
+     *
+     * @return true if it was added
+     */
+    public boolean add(Question question) {
+        if (ids.containsKey(question)) {
+            return false;
+        }
+        long[] minimums = minHash(question);
+        byte[] signature = signature(minimums);
+        int[] keys = bandKeys(minimums);
+        if (findSimilar(signature, keys) >= 0) {
+            return false;
+        }
+        insert(question, signature, keys);
+        return true;
+    }
+
+    /**
+     * Index a question already known to be distinct (e.g. one materialized
+     * from a mapped store that was de-duplicated as it was filled), without
+     * checking it or keeping a reference to it. Such an entry is removed by
+     * passing remove() an equal question.
+     */
+    public void addDetached(Question question) {
+        long[] minimums = minHash(question);
+        insert(null, signature(minimums), bandKeys(minimums));
+    }
+
+    /**
+     * Whether a question is a near-duplicate of an indexed one
+     */
+    public boolean containsSimilar(Question question) {
+        long[] minimums = minHash(question);
+        return findSimilar(signature(minimums), bandKeys(minimums)) >= 0;
+    }
+
+    /**
+     * Stop holding a reference to an indexed question, as if it had been
+     * added detached, e.g. once it has been written to a mapped store
+     */
+    public void detach(Question question) {
+        ids.remove(question);
+    }
+
+    /**
+     * Forget a question, e.g. once it has been taken out of a pool. A
+     * detached entry is found by its signature.
+     */
+    public void remove(Question question) {
+        Integer id = ids.remove(question);
+        if (id == null) {
+            long[] minimums = minHash(question);
+            id = findIdentical(signature(minimums), bandKeys(minimums));
+        }
+        if (id < 0 || removed.get(id)) {
+            return;
+        }
+        removed.set(id);
+        removedCount++;
+        if (removedCount > 1024 && removedCount > size - removedCount) {
+            compact();
+        }
+    }
+
+    public int size() {
+        return size - removedCount;
+    }
+
+    /**
+     * Keep the first of each group of near-duplicates, in order
+     */
+    public static List<Question> distinct(List<Question> questions) {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        List<Question> kept = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            if (index.add(question)) {
+                kept.add(question);
+            }
+        }
+        return kept;
+    }
+
+    // ---------------------------------------------------------------- hashing
+
+    private static long[] minHash(Question question) {
+        String correct = question.getCorrectAnswer();
+        String text = question.getFingerprint() + " | "
+            + (correct == null ? "" : correct.toLowerCase().replaceAll("[^\\p{L}\\p{N}]+", " ").trim());
+
+        long[] minimums = new long[HASHES];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+
+        int shingles = Math.max(1, text.length() - SHINGLE_LENGTH + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingle = 0xcbf29ce484222325L;
+            int end = Math.min(text.length(), start + SHINGLE_LENGTH);
+            for (int i = start; i < end; i++) {
+                shingle ^= text.charAt(i);
+                shingle *= 0x100000001b3L;
+            }
+            // Multiply-shift hashing: one cheap hash per signature slot
+            for (int h = 0; h < HASHES; h++) {
+                long value = (shingle * MULTIPLIERS[h] + ADDENDS[h]) >>> 32;
+                if (value < minimums[h]) {
+                    minimums[h] = value;
+                }
+            }
+        }
+        return minimums;
+    }
+
+    // Only the low byte of each minimum is kept for verification (b-bit MinHash)
+    private static byte[] signature(long[] minimums) {
+        byte[] signature = new byte[HASHES];
+        for (int h = 0; h < HASHES; h++) {
+            signature[h] = (byte) minimums[h];
+        }
+        return signature;
+    }
+
+    private static int[] bandKeys(long[] minimums) {
+        int[] keys = new int[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = 0; row < ROWS; row++) {
+                key = key * 0x9E3779B97F4A7C15L + minimums[band * ROWS + row];
+            }
+            keys[band] = (int) mix(key);
+        }
+        return keys;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    // ---------------------------------------------------------------- buckets
+
+    private int findSimilar(byte[] signature, int[] keys) {
+        int mask = buckets.length - 1;
+        for (int band = 0; band < BANDS; band++) {
+            for (int entry = buckets[(keys[band] ^ band) & mask]; entry >= 0; entry = nextEntry[entry]) {
+                if (entry % BANDS != band || bandKeys[entry] != keys[band]) {
+                    continue;
+                }
+                int id = entry / BANDS;
+                if (!removed.get(id) && similarity(signature, id) >= SIMILARITY_THRESHOLD) {
+                    return id;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Entries are distinct, so at most one can share a question's whole signature
+    private int findIdentical(byte[] signature, int[] keys) {
+        int mask = buckets.length - 1;
+        for (int entry = buckets[keys[0] & mask]; entry >= 0; entry = nextEntry[entry]) {
+            int id = entry / BANDS;
+            if (entry % BANDS == 0 && bandKeys[entry] == keys[0] && !removed.get(id)
+                    && Arrays.equals(signatures, id * HASHES, id * HASHES + HASHES, signature, 0, HASHES)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Jaccard estimate from b-bit signatures, corrected for the 1/256 chance
+     * that two different minimums share a low byte
+     */
+    private double similarity(byte[] signature, int id) {
+        int offset = id * HASHES;
+        int matches = 0;
+        for (int h = 0; h < HASHES; h++) {
+            if (signatures[offset + h] == signature[h]) {
+                matches++;
+            }
+        }
+        double observed = (double) matches / HASHES;
+        return (observed - 1.0 / 256) / (1 - 1.0 / 256);
+    }
+
+    private void insert(Question question, byte[] signature, int[] keys) {
+        int id = size++;
+        ensureCapacity(size);
+        System.arraycopy(signature, 0, signatures, id * HASHES, HASHES);
+        for (int band = 0; band < BANDS; band++) {
+            bandKeys[id * BANDS + band] = keys[band];
+        }
+        if (question != null) {
+            ids.put(question, id); // Detached entries are not tracked
+        }
+
+        if (size * BANDS > buckets.length) {
+            rehash(buckets.length * 2);
+        } else {
+            link(id);
+        }
+    }
+
+    private void link(int id) {
+        int mask = buckets.length - 1;
+        for (int band = 0; band < BANDS; band++) {
+            int entry = id * BANDS + band;
+            int bucket = (bandKeys[entry] ^ band) & mask;
+            nextEntry[entry] = buckets[bucket];
+            buckets[bucket] = entry;
+        }
+    }
+
+    private void rehash(int bucketCount) {
+        buckets = newBuckets(bucketCount);
+        for (int id = 0; id < size; id++) {
+            link(id);
+        }
+    }
+
+    private void ensureCapacity(int questions) {
+        if (questions * HASHES > signatures.length) {
+            int capacity = Math.max(questions, signatures.length / HASHES * 2);
+            signatures = Arrays.copyOf(signatures, capacity * HASHES);
+            bandKeys = Arrays.copyOf(bandKeys, capacity * BANDS);
+            nextEntry = Arrays.copyOf(nextEntry, capacity * BANDS);
+        }
+    }
+
+    private static int[] newBuckets(int count) {
+        int[] buckets = new int[count];
+        Arrays.fill(buckets, -1);
+        return buckets;
+    }
+
+    /**
+     * Drop removed questions and renumber the rest
+     */
+    private void compact() {
+        int[] newIds = new int[size];
+        int live = 0;
+        for (int id = 0; id < size; id++) {
+            if (removed.get(id)) {
+                newIds[id] = -1;
+                continue;
+            }
+            System.arraycopy(signatures, id * HASHES, signatures, live * HASHES, HASHES);
+            System.arraycopy(bandKeys, id * BANDS, bandKeys, live * BANDS, BANDS);
+            newIds[id] = live++;
+        }
+        for (Map.Entry<Question, Integer> entry : ids.entrySet()) {
+            entry.setValue(newIds[entry.getValue()]);
+        }
+
+        size = live;
+        removed.clear();
+        removedCount = 0;
+        int bucketCount = 64;
+        while (bucketCount < size * BANDS) {
+            bucketCount *= 2;
+        }
+        rehash(bucketCount);
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Questions available without Gemini, read from the serialized
+ * ArrayList<Question> corpora in the questions/ directory (the bundled
+ * Java, Math, Science and General Knowledge sets plus any .dat file a user
+ * drops in). Questions are indexed by domain, difficulty and type, and
+ * sampled at random without replacement, so offline and degraded mode can
+ * serve real questions instantly.
+ *
+ * A corpus file is named after its domain; short names like "Java" or
+ * "Math" are mapped to the application's domains. A mixed corpus such as
+ * "Science" keeps its own name and is never filed under a specific
+ * subject; it only stands in for subjects that have no corpus of their
+ * own (see fallbackDomain). Large corpora can be
+ * shipped as memory-mapped .qzs stores (see MappedQuestionStore), whose
+ * questions stay on disk: only their ids are indexed here, and a question
+ * is materialized when it is drawn.
+ */
+public class OfflineQuestionStore {
+    private static final Map<String, String> DOMAIN_ALIASES = new HashMap<>();
+    private static final Map<String, String> GENERIC_DOMAINS = new HashMap<>();
+    private static final String LAST_RESORT_DOMAIN = "General Knowledge";
+    static {
+        DOMAIN_ALIASES.put("java", "Java Programming");
+        DOMAIN_ALIASES.put("math", "Mathematics");
+        DOMAIN_ALIASES.put("maths", "Mathematics");
+        DOMAIN_ALIASES.put("science", "Science");
+        DOMAIN_ALIASES.put("python", "Python Programming");
+
+        // Mixed corpora that can stand in for a subject with none of its own
+        GENERIC_DOMAINS.put("Physics", "Science");
+        GENERIC_DOMAINS.put("Chemistry", "Science");
+        GENERIC_DOMAINS.put("Biology", "Science");
+    }
+
+    private static OfflineQuestionStore sharedInstance;
+
+    // domain -> difficulty -> type -> questions
+    private final Map<String, Map<String, Map<QuestionType, Bucket>>> index = new HashMap<>();
+    private final List<MappedQuestionStore> mappedStores = new ArrayList<>();
+    private int size;
+
+    /**
+     * Get the store shared by every QuestionBank in this JVM
+     */
+    public static synchronized OfflineQuestionStore shared(Config config) {
+        if (sharedInstance == null) {
+            sharedInstance = load(new File(config.getOfflineQuestionsDir()));
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Load every .dat corpus and .qzs store in a directory; unreadable
+     * files are skipped
+     */
+    public static OfflineQuestionStore load(File directory) {
+        OfflineQuestionStore store = new OfflineQuestionStore();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".dat") || name.endsWith(".qzs"));
+        if (files == null) {
+            return store;
+        }
+
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName().substring(0, file.getName().length() - 4);
+            try {
+                int loaded = file.getName().endsWith(".qzs")
+                    ? store.addAll(MappedQuestionStore.open(file))
+                    : store.addAll(name, readCorpus(file));
+                System.out.println("Loaded " + loaded + " offline questions from " + file.getName());
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                System.err.println("Skipping question corpus " + file + ": " + e.getMessage());
+            }
+        }
+        return store;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Question> readCorpus(File file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (List<Question>) in.readObject();
+        }
+    }
+
+    /**
+     * Add a corpus under a domain name (or alias)
+     *
+     * @return number of questions added
+     */
+    public synchronized int addAll(String corpusName, List<Question> questions) {
+        String domain = domainFor(corpusName);
+        int added = 0;
+        for (Question question : questions) {
+            if (question == null || question.getText() == null || question.getText().trim().isEmpty()
+                    || question.getOptions() == null || question.getOptions().isEmpty()) {
+                continue;
+            }
+            QuestionType type = question.getType() != null ? question.getType() : QuestionType.MULTIPLE_CHOICE;
+            bucket(domain, question.getDifficulty(), type).questions.add(question);
+            added++;
+        }
+        size += added;
+        return added;
+    }
+
+    /**
+     * Index a mapped store by id; its questions are read from disk only
+     * when sampled. Each question is filed under its stored domain (or alias).
+     *
+     * @return number of questions added
+     */
+    public synchronized int addAll(MappedQuestionStore store) {
+        mappedStores.add(store);
+        Map<String, Bucket> bucketsByKey = new HashMap<>();
+        for (int id = 0; id < store.size(); id++) {
+            String corpusName = store.getDomain(id);
+            String difficulty = store.getDifficulty(id);
+            QuestionType type = store.getType(id);
+            bucketsByKey.computeIfAbsent(corpusName + '\n' + difficulty + '\n' + type,
+                    k -> bucket(domainFor(corpusName), difficulty, type))
+                .addMapped(store, id);
+        }
+        size += store.size();
+        return store.size();
+    }
+
+    private static String domainFor(String corpusName) {
+        return DOMAIN_ALIASES.getOrDefault(corpusName.toLowerCase(), corpusName);
+    }
+
+    private Bucket bucket(String domain, String difficulty, QuestionType type) {
+        return index.computeIfAbsent(domain, d -> new HashMap<>())
+                    .computeIfAbsent(difficulty, d -> new EnumMap<>(QuestionType.class))
+                    .computeIfAbsent(type, t -> new Bucket());
+    }
+
+    public synchronized boolean hasDomain(String domain) {
+        return index.containsKey(domain);
+    }
+
+    /**
+     * The domain to draw offline questions from for a requested domain:
+     * its own corpus if there is one, else a mixed corpus covering it
+     * (Science for Physics), else General Knowledge
+     */
+    public synchronized String fallbackDomain(String domain) {
+        if (index.containsKey(domain)) {
+            return domain;
+        }
+        String generic = GENERIC_DOMAINS.get(domain);
+        return generic != null && index.containsKey(generic) ? generic : LAST_RESORT_DOMAIN;
+    }
+
+    /**
+     * Questions for a domain, difficulty and type; empty if there are none
+     */
+    public synchronized List<Question> getQuestions(String domain, String difficulty, QuestionType type) {
+        Bucket bucket = index.getOrDefault(domain, Collections.emptyMap())
+            .getOrDefault(difficulty, Collections.emptyMap())
+            .get(type);
+        return bucket == null ? Collections.emptyList() : bucket;
+    }
+
+    /**
+     * Number of questions loaded, counting each corpus question once
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public List<Question> sample(String domain, String difficulty, int count) {
+        return sample(domain, difficulty, count, question -> true);
+    }
+
+    /**
+     * Draw up to count distinct questions at random for a domain.
+     * Questions of the requested difficulty come first, then the others.
+     * Preferred questions (e.g. ones the user has not seen) are drawn
+     * before the rest, which are only used to make up the count.
+     */
+    public synchronized List<Question> sample(String domain, String difficulty, int count, Predicate<Question> prefer) {
+        Map<String, Map<QuestionType, Bucket>> byDifficulty = index.get(domain);
+        if (byDifficulty == null || count <= 0) {
+            return new ArrayList<>();
+        }
+
+        List<Bucket> exact = new ArrayList<>();
+        List<Bucket> other = new ArrayList<>();
+        for (Map.Entry<String, Map<QuestionType, Bucket>> entry : byDifficulty.entrySet()) {
+            (Objects.equals(entry.getKey(), difficulty) ? exact : other).addAll(entry.getValue().values());
+        }
+
+        List<Question> sample = new ArrayList<>(count);
+        List<Question> notPreferred = new ArrayList<>();
+        draw(exact, count, prefer, sample, notPreferred);
+        draw(other, count, prefer, sample, notPreferred);
+        for (int i = 0; i < notPreferred.size() && sample.size() < count; i++) {
+            sample.add(notPreferred.get(i));
+        }
+        return sample;
+    }
+
+    /**
+     * Partial Fisher-Yates shuffle over the buckets as one virtual list:
+     * each step picks a random remaining position, so nothing is drawn
+     * twice. Swaps are recorded sparsely, so a draw costs O(count) however
+     * large the corpus is and nothing is copied.
+     */
+    private static void draw(List<Bucket> buckets, int count, Predicate<Question> prefer,
+                             List<Question> sample, List<Question> notPreferred) {
+        int total = 0;
+        for (Bucket bucket : buckets) {
+            total += bucket.size();
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<Integer, Integer> swapped = new HashMap<>();
+        for (int i = 0; i < total && sample.size() < count; i++) {
+            int j = i + random.nextInt(total - i);
+            int position = swapped.getOrDefault(j, j);
+            swapped.put(j, swapped.getOrDefault(i, i));
+
+            Question question = get(buckets, position);
+            if (prefer.test(question)) {
+                sample.add(withShuffledOptions(question));
+            } else if (notPreferred.size() < count) {
+                notPreferred.add(withShuffledOptions(question));
+            }
+        }
+    }
+
+    private static Question get(List<Bucket> buckets, int position) {
+        for (Bucket bucket : buckets) {
+            if (position < bucket.size()) {
+                return bucket.get(position);
+            }
+            position -= bucket.size();
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    /**
+     * A copy with the options reordered; the corpora list the answer first
+     */
+    private static Question withShuffledOptions(Question question) {
+        if (question.getType() == QuestionType.TRUE_FALSE) {
+            return question;
+        }
+        List<String> options = new ArrayList<>(question.getOptions());
+        String correctAnswer = question.getCorrectAnswer();
+        Collections.shuffle(options);
+        return new Question(question.getText(), options, options.indexOf(correctAnswer),
+            question.getDifficulty(), question.getType(), question.getExplanation());
+    }
+
+    /**
+     * Questions of one domain, difficulty and type: in-memory corpus
+     * questions first, then ids into mapped stores. Read-only once loaded.
+     */
+    private static final class Bucket extends AbstractList<Question> {
+        final List<Question> questions = new ArrayList<>();
+        final List<MappedQuestionStore> stores = new ArrayList<>();
+        final List<int[]> ids = new ArrayList<>();
+        final List<Integer> idCounts = new ArrayList<>();
+        int mappedCount;
+
+        void addMapped(MappedQuestionStore store, int id) {
+            int last = stores.size() - 1;
+            if (last < 0 || stores.get(last) != store) {
+                stores.add(store);
+                ids.add(new int[16]);
+                idCounts.add(0);
+                last++;
+            }
+            int[] storeIds = ids.get(last);
+            int storeCount = idCounts.get(last);
+            if (storeCount == storeIds.length) {
+                storeIds = Arrays.copyOf(storeIds, storeCount * 2);
+                ids.set(last, storeIds);
+            }
+            storeIds[storeCount] = id;
+            idCounts.set(last, storeCount + 1);
+            mappedCount++;
+        }
+
+        @Override
+        public int size() {
+            return questions.size() + mappedCount;
+        }
+
+        @Override
+        public Question get(int position) {
+            if (position < questions.size()) {
+                return questions.get(position);
+            }
+            position -= questions.size();
+            for (int i = 0; i < stores.size(); i++) {
+                if (position < idCounts.get(i)) {
+                    return stores.get(i).get(ids.get(i)[position]);
+                }
+                position -= idCounts.get(i);
+            }
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
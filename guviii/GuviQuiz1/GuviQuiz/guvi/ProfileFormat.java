@@ -0,0 +1,303 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Compact, versioned binary encoding for UserProfile files.
+ *
+ * Layout (version 3), all counts and integers as unsigned varints:
+ *   magic "QZPF", version byte
+ *   journal sequence                                 (version 2 and later)
+ *   username, preferredDifficulty, preferredTheme    strings
+ *   totalQuizzesTaken, achievementPoints
+ *   badge count, badges                              strings
+ *   dictionary size, dictionary entries              strings
+ *   history domain count, then per domain:
+ *     domain (dictionary index), result count, then per result:
+ *       difficulty (dictionary index), correctAnswers, totalQuestions,
+ *       timeTakenSeconds, completion time (zigzag varint epoch seconds)
+ *   score aggregates (version 3 and later): domain count, then per domain:
+ *     domain (dictionary index), difficulty count, then per difficulty:
+ *       difficulty (dictionary index), count, sum, sum of squares, best,
+ *       worst (doubles), total time, last completion time (0 if none,
+ *       otherwise zigzag varint epoch seconds plus one)
+ *
+ * Strings are a varint byte length followed by UTF-8; length 0 marks null
+ * and any other length is stored plus one. Domain and difficulty names are
+ * written once in the dictionary instead of once per result.
+ * The journal sequence is the last ProfileJournal record folded into the
+ * snapshot; version 1 files predate the journal and read as 0. Aggregates
+ * missing from older versions are rebuilt from the history.
+ */
+public class ProfileFormat {
+    private static final byte[] MAGIC = {'Q', 'Z', 'P', 'F'};
+    private static final int VERSION = 3;
+
+    private ProfileFormat() {
+    }
+
+    /**
+     * True if the stream starts with this format's magic bytes.
+     * The stream must support mark/reset.
+     */
+    public static boolean isProfileFormat(InputStream in) throws IOException {
+        in.mark(MAGIC.length);
+        try {
+            for (byte b : MAGIC) {
+                if (in.read() != b) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            in.reset();
+        }
+    }
+
+    public static void write(UserProfile profile, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        Map<String, List<QuizResult>> history = profile.getQuizHistory();
+
+        // Build the string dictionary, domains first
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (Map.Entry<String, List<QuizResult>> entry : history.entrySet()) {
+            dictionary.putIfAbsent(entry.getKey(), dictionary.size());
+            for (QuizResult result : entry.getValue()) {
+                dictionary.putIfAbsent(nullToEmpty(result.getDifficulty()), dictionary.size());
+            }
+        }
+        Map<String, Map<String, ScoreStats>> scoreStats = profile.getAllScoreStats();
+        for (Map.Entry<String, Map<String, ScoreStats>> entry : scoreStats.entrySet()) {
+            dictionary.putIfAbsent(entry.getKey(), dictionary.size());
+            for (String difficulty : entry.getValue().keySet()) {
+                dictionary.putIfAbsent(difficulty, dictionary.size());
+            }
+        }
+
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        writeVarLong(out, profile.getJournalSequence());
+
+        writeString(out, profile.getUsername());
+        writeString(out, profile.getPreferredDifficulty());
+        writeString(out, profile.getPreferredTheme());
+        writeVarLong(out, profile.getTotalQuizzesTaken());
+        writeVarLong(out, profile.getAchievementPoints());
+
+        List<String> badges = profile.getEarnedBadges();
+        writeVarLong(out, badges.size());
+        for (String badge : badges) {
+            writeString(out, badge);
+        }
+
+        writeVarLong(out, dictionary.size());
+        for (String entry : dictionary.keySet()) {
+            writeString(out, entry);
+        }
+
+        writeVarLong(out, history.size());
+        for (Map.Entry<String, List<QuizResult>> entry : history.entrySet()) {
+            writeVarLong(out, dictionary.get(entry.getKey()));
+            writeVarLong(out, entry.getValue().size());
+            for (QuizResult result : entry.getValue()) {
+                writeVarLong(out, dictionary.get(nullToEmpty(result.getDifficulty())));
+                writeVarLong(out, result.getCorrectAnswers());
+                writeVarLong(out, result.getTotalQuestions());
+                writeVarLong(out, result.getTimeTakenSeconds());
+                writeVarLong(out, zigZag(toEpochSecond(result.getCompletionDate())));
+            }
+        }
+
+        writeVarLong(out, scoreStats.size());
+        for (Map.Entry<String, Map<String, ScoreStats>> entry : scoreStats.entrySet()) {
+            writeVarLong(out, dictionary.get(entry.getKey()));
+            writeVarLong(out, entry.getValue().size());
+            for (Map.Entry<String, ScoreStats> difficulty : entry.getValue().entrySet()) {
+                ScoreStats stats = difficulty.getValue();
+                writeVarLong(out, dictionary.get(difficulty.getKey()));
+                writeVarLong(out, stats.getCount());
+                out.writeDouble(stats.getSum());
+                out.writeDouble(stats.getSumOfSquares());
+                out.writeDouble(stats.getBest());
+                out.writeDouble(stats.getWorst());
+                writeVarLong(out, stats.getTotalTimeSeconds());
+                LocalDateTime last = stats.getLastCompleted();
+                writeVarLong(out, last == null ? 0 : zigZag(toEpochSecond(last)) + 1);
+            }
+        }
+
+        out.flush();
+    }
+
+    public static UserProfile read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a profile file");
+        }
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported profile version " + version);
+        }
+        long journalSequence = version >= 2 ? readVarLong(in) : 0;
+
+        String username = readString(in);
+        String preferredDifficulty = readString(in);
+        String preferredTheme = readString(in);
+        int totalQuizzesTaken = readVarInt(in);
+        int achievementPoints = readVarInt(in);
+
+        int badgeCount = readVarInt(in);
+        List<String> badges = new ArrayList<>(badgeCount);
+        for (int i = 0; i < badgeCount; i++) {
+            badges.add(readString(in));
+        }
+
+        int dictionarySize = readVarInt(in);
+        String[] dictionary = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary[i] = readString(in);
+        }
+
+        int domainCount = readVarInt(in);
+        Map<String, List<QuizResult>> history = new HashMap<>();
+        for (int d = 0; d < domainCount; d++) {
+            String domain = lookup(dictionary, readVarInt(in));
+            int resultCount = readVarInt(in);
+            List<QuizResult> results = new ArrayList<>(resultCount);
+            for (int r = 0; r < resultCount; r++) {
+                String difficulty = lookup(dictionary, readVarInt(in));
+                int correctAnswers = readVarInt(in);
+                int totalQuestions = readVarInt(in);
+                long timeTakenSeconds = readVarLong(in);
+                long epochSecond = unZigZag(readVarLong(in));
+                results.add(new QuizResult(domain, difficulty, correctAnswers, totalQuestions,
+                    timeTakenSeconds, LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC)));
+            }
+            history.put(domain, results);
+        }
+
+        Map<String, Map<String, ScoreStats>> scoreStats = null;
+        if (version >= 3) {
+            scoreStats = new HashMap<>();
+            int statsDomainCount = readVarInt(in);
+            for (int d = 0; d < statsDomainCount; d++) {
+                String domain = lookup(dictionary, readVarInt(in));
+                int difficultyCount = readVarInt(in);
+                Map<String, ScoreStats> byDifficulty = new HashMap<>();
+                for (int i = 0; i < difficultyCount; i++) {
+                    String difficulty = lookup(dictionary, readVarInt(in));
+                    int count = readVarInt(in);
+                    double sum = in.readDouble();
+                    double sumOfSquares = in.readDouble();
+                    double best = in.readDouble();
+                    double worst = in.readDouble();
+                    long totalTimeSeconds = readVarLong(in);
+                    long last = readVarLong(in);
+                    byDifficulty.put(difficulty, new ScoreStats(count, sum, sumOfSquares, best, worst,
+                        totalTimeSeconds,
+                        last == 0 ? null : LocalDateTime.ofEpochSecond(unZigZag(last - 1), 0, ZoneOffset.UTC)));
+                }
+                scoreStats.put(domain, byDifficulty);
+            }
+        }
+
+        UserProfile profile = new UserProfile(username, history, totalQuizzesTaken, achievementPoints,
+            badges, preferredDifficulty, preferredTheme, scoreStats);
+        profile.setJournalSequence(journalSequence);
+        return profile;
+    }
+
+    /**
+     * Read only the journal sequence from a profile's header, without
+     * decoding the rest. Files in older formats read as 0.
+     */
+    public static long readJournalSequence(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            return 0;
+        }
+        int version = in.readUnsignedByte();
+        return version >= 2 ? readVarLong(in) : 0;
+    }
+
+    // ------------------------------------------------------------------ helpers
+
+    // Completion times are local wall-clock times; UTC is only the encoding
+    static long toEpochSecond(LocalDateTime time) {
+        return time == null ? 0 : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static String nullToEmpty(String text) {
+        return text == null ? "" : text;
+    }
+
+    private static String lookup(String[] dictionary, int index) throws IOException {
+        if (index < 0 || index >= dictionary.length) {
+            throw new IOException("Corrupt profile: dictionary index " + index);
+        }
+        return dictionary[index];
+    }
+
+    static void writeString(DataOutputStream out, String text) throws IOException {
+        if (text == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt profile: varint too long");
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt profile: value out of range " + value);
+        }
+        return (int) value;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
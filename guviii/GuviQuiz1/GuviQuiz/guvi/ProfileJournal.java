@@ -0,0 +1,240 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only change log for a user profile, kept next to its snapshot as
+ * profiles/<user>.log. Each quiz result or preference change is written as
+ * one small record and synced to disk, so the cost of a write does not
+ * depend on how much history the profile holds. UserProfile folds the log
+ * back into a fresh snapshot once it grows past a threshold.
+ *
+ * Record layout: varint body length, body, CRC-32 of the body (4 bytes).
+ * Body: type byte, varint sequence number, then the fields for the type,
+ * encoded as in ProfileFormat. A torn record at the end of the file, left
+ * by a crash mid-write, fails its length or CRC check and is dropped.
+ *
+ * The same profile can be open in several places at once (the desktop app
+ * and the quiz server), so writers take the profile's lock first: an
+ * in-process lock plus an OS lock on <user>.log.lock for other processes.
+ */
+public class ProfileJournal {
+    private static final int RESULT = 1;
+    private static final int PREFERENCES = 2;
+
+    // One lock per profile for every ProfileJournal in this JVM
+    private static final ConcurrentHashMap<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private final File file;
+    private ReentrantLock lock;
+    private FileChannel lockChannel;
+
+    public ProfileJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Take the profile's write lock, waiting for other holders in this or
+     * another process. Reentrant within a thread; release with unlock().
+     */
+    public void lock() throws IOException {
+        File lockFile = new File(file.getAbsolutePath() + ".lock");
+        ReentrantLock held = LOCKS.computeIfAbsent(lockFile.getPath(), path -> new ReentrantLock());
+        held.lock();
+        if (held.getHoldCount() == 1) {
+            try {
+                lockFile.getParentFile().mkdirs();
+                lockChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                lockChannel.lock();
+            } catch (IOException e) {
+                closeLockChannel();
+                held.unlock();
+                throw e;
+            }
+        }
+        lock = held;
+    }
+
+    public void unlock() {
+        closeLockChannel();
+        lock.unlock();
+        lock = null;
+    }
+
+    // Closing the channel releases the OS lock
+    private void closeLockChannel() {
+        if (lockChannel != null) {
+            try {
+                lockChannel.close();
+            } catch (IOException e) {
+                System.err.println("Error releasing profile lock: " + e.getMessage());
+            }
+            lockChannel = null;
+        }
+    }
+
+    public void appendResult(long sequence, String domain, QuizResult result) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeByte(RESULT);
+        ProfileFormat.writeVarLong(out, sequence);
+        ProfileFormat.writeString(out, domain);
+        ProfileFormat.writeString(out, result.getDifficulty());
+        ProfileFormat.writeVarLong(out, result.getCorrectAnswers());
+        ProfileFormat.writeVarLong(out, result.getTotalQuestions());
+        ProfileFormat.writeVarLong(out, result.getTimeTakenSeconds());
+        ProfileFormat.writeVarLong(out, ProfileFormat.zigZag(ProfileFormat.toEpochSecond(result.getCompletionDate())));
+        append(body.toByteArray());
+    }
+
+    public void appendPreferences(long sequence, String preferredDifficulty, String preferredTheme) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeByte(PREFERENCES);
+        ProfileFormat.writeVarLong(out, sequence);
+        ProfileFormat.writeString(out, preferredDifficulty);
+        ProfileFormat.writeString(out, preferredTheme);
+        append(body.toByteArray());
+    }
+
+    /**
+     * Write one framed record and sync it to disk
+     */
+    private void append(byte[] body) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream(body.length + 10);
+        DataOutputStream out = new DataOutputStream(record);
+        ProfileFormat.writeVarLong(out, body.length);
+        out.write(body);
+        out.writeInt((int) crc.getValue());
+
+        try (FileOutputStream stream = new FileOutputStream(file, true)) {
+            stream.write(record.toByteArray());
+            stream.getFD().sync();
+        }
+    }
+
+    /**
+     * Apply every record newer than the profile's journal sequence to the profile.
+     * A damaged tail is cut off so later appends start on a clean record.
+     *
+     * @return the number of records in the log, applied or not
+     */
+    public int replay(UserProfile profile) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+
+        int records = 0;
+        long validLength = 0;
+        CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try (DataInputStream in = new DataInputStream(counter)) {
+            while (true) {
+                byte[] body = readRecord(in);
+                if (body == null) {
+                    break;
+                }
+                apply(profile, body);
+                records++;
+                validLength = counter.position;
+            }
+        }
+
+        if (validLength < file.length()) {
+            System.err.println("Dropping damaged journal tail in " + file.getName());
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Remove the log once its records are in a snapshot
+     */
+    public void delete() {
+        file.delete();
+    }
+
+    /**
+     * Read one record, or return null at the end of the log or at a torn record
+     */
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            long length = ProfileFormat.readVarLong(in);
+            if (length <= 0 || length > 1 << 20) {
+                return null;
+            }
+            byte[] body = new byte[(int) length];
+            in.readFully(body);
+            int storedCrc = in.readInt();
+
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            return storedCrc == (int) crc.getValue() ? body : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void apply(UserProfile profile, byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int type = in.readUnsignedByte();
+        long sequence = ProfileFormat.readVarLong(in);
+        if (sequence <= profile.getJournalSequence()) {
+            return; // Already in the snapshot or applied earlier
+        }
+
+        switch (type) {
+            case RESULT:
+                String domain = ProfileFormat.readString(in);
+                String difficulty = ProfileFormat.readString(in);
+                int correctAnswers = (int) ProfileFormat.readVarLong(in);
+                int totalQuestions = (int) ProfileFormat.readVarLong(in);
+                long timeTakenSeconds = ProfileFormat.readVarLong(in);
+                long epochSecond = ProfileFormat.unZigZag(ProfileFormat.readVarLong(in));
+                profile.addQuizResult(domain, new QuizResult(domain, difficulty, correctAnswers, totalQuestions,
+                    timeTakenSeconds, LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC)));
+                break;
+            case PREFERENCES:
+                profile.setPreferredDifficulty(ProfileFormat.readString(in));
+                profile.setPreferredTheme(ProfileFormat.readString(in));
+                break;
+            default:
+                System.err.println("Skipping unknown journal record type " + type);
+        }
+        profile.setJournalSequence(sequence);
+    }
+
+    /**
+     * Stream that tracks how many bytes have been consumed
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long position;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+import java.io.*;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Self-checking run of profile storage in a scratch directory: migration
+ * of a Java-serialized profile to the compact format, a save/load round
+ * trip, rejection of a truncated snapshot, and journal replay past a torn
+ * or damaged last record. Real profiles are never touched.
+ *
+ * Usage: java ProfileStorageTest
+ * Exits with status 1 if any check fails.
+ */
+public class ProfileStorageTest {
+    private static final String[] DOMAINS = {"Java Programming", "Physics", "History"};
+    private static final String[] DIFFICULTIES = {"Easy", "Medium", "Hard"};
+
+    private static int checks;
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=".repeat(70));
+        System.out.println("    PROFILE STORAGE TEST");
+        System.out.println("=".repeat(70));
+
+        File directory = Files.createTempDirectory("profile-storage-test").toFile();
+        File previousDirectory = UserProfile.getProfilesDirectory();
+        UserProfile.setProfilesDirectory(directory);
+        try {
+            legacyMigration(directory);
+            roundTrip();
+            truncatedSnapshot(directory);
+            tornJournal(directory);
+            sharedJournal();
+        } finally {
+            UserProfile.setProfilesDirectory(previousDirectory);
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+
+        System.out.println("\n" + (checks - failures) + " of " + checks + " checks passed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * A profile saved with Java serialization by older versions loads with
+     * its history intact and is rewritten in the compact format
+     */
+    private static void legacyMigration(File directory) throws Exception {
+        System.out.println("\nLegacy migration");
+        UserProfile legacy = buildProfile("legacy", 40);
+        File file = new File(directory, "legacy.dat");
+        writeLegacy(legacy, file);
+
+        UserProfile migrated = UserProfile.loadProfile("legacy");
+        checkSameProfile(legacy, migrated);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            check(ProfileFormat.isProfileFormat(in), "file rewritten in the compact format");
+        }
+        checkSameProfile(legacy, UserProfile.loadProfile("legacy"));
+    }
+
+    /**
+     * Everything a profile holds survives a save and load
+     */
+    private static void roundTrip() {
+        System.out.println("\nSave/load round trip");
+        UserProfile saved = buildProfile("roundtrip", 500);
+        saved.saveProfile();
+        checkSameProfile(saved, UserProfile.loadProfile("roundtrip"));
+
+        UserProfile empty = new UserProfile("empty");
+        empty.saveProfile();
+        checkSameProfile(empty, UserProfile.loadProfile("empty"));
+    }
+
+    /**
+     * A snapshot cut short is reported as an I/O error, not misread
+     */
+    private static void truncatedSnapshot(File directory) throws Exception {
+        System.out.println("\nTruncated snapshot");
+        UserProfile saved = buildProfile("truncated", 100);
+        saved.saveProfile();
+        byte[] bytes = Files.readAllBytes(new File(directory, "truncated.dat").toPath());
+
+        int rejected = 0;
+        int cuts = 0;
+        for (int length = 0; length < bytes.length; length += Math.max(1, bytes.length / 50)) {
+            cuts++;
+            try {
+                ProfileFormat.read(new ByteArrayInputStream(bytes, 0, length));
+            } catch (IOException e) {
+                rejected++;
+            }
+        }
+        check(rejected == cuts, "every cut rejected (" + rejected + " of " + cuts + ")");
+    }
+
+    /**
+     * A journal cut mid-record, or with a damaged last record, replays every
+     * record before it, and later appends start on a clean record
+     */
+    private static void tornJournal(File directory) throws Exception {
+        System.out.println("\nTorn journal");
+        File log = new File(directory, "torn.log");
+        for (int cut : new int[]{2, -1}) {
+            UserProfile profile = buildProfile("torn", 20);
+            profile.saveProfile();
+            for (int i = 0; i < 3; i++) {
+                profile.recordQuizResult("Physics", new QuizResult("Physics", "Easy", i, 10, 60));
+            }
+            long complete = log.length();
+            String damage = cut > 0 ? "cut mid-record" : "damaged last record";
+            try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+                if (cut > 0) {
+                    raf.setLength(complete - cut);
+                } else {
+                    raf.seek(complete - 6);
+                    int b = raf.read();
+                    raf.seek(complete - 6);
+                    raf.write(b ^ 0xFF);
+                }
+            }
+
+            UserProfile replayed = UserProfile.loadProfile("torn");
+            check(replayed.getTotalQuizzesTaken() == 22, damage + ": records before it replayed");
+            check(log.length() < complete - (cut > 0 ? cut : 0), damage + ": tail dropped");
+
+            replayed.recordQuizResult("Physics", new QuizResult("Physics", "Easy", 9, 10, 60));
+            check(UserProfile.loadProfile("torn").getTotalQuizzesTaken() == 23, damage + ": later append replayed");
+
+            new File(directory, "torn.dat").delete();
+            log.delete();
+        }
+    }
+
+    /**
+     * Two instances of one profile (the desktop app and the server, say)
+     * writing in turn both keep their results
+     */
+    private static void sharedJournal() {
+        System.out.println("\nShared journal");
+        buildProfile("shared", 10).saveProfile();
+        UserProfile first = UserProfile.loadProfile("shared");
+        UserProfile second = UserProfile.loadProfile("shared");
+        for (int i = 0; i < 60; i++) {
+            (i % 2 == 0 ? first : second).recordQuizResult("History", new QuizResult("History", "Medium", 5, 10, 90));
+        }
+        check(UserProfile.loadProfile("shared").getTotalQuizzesTaken() == 70, "all 60 results kept");
+    }
+
+    // ------------------------------------------------------------------ helpers
+
+    static UserProfile buildProfile(String username, int history) {
+        UserProfile profile = new UserProfile(username);
+        Random random = new Random(history);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < history; i++) {
+            String domain = DOMAINS[random.nextInt(DOMAINS.length)];
+            profile.addQuizResult(domain, new QuizResult(domain, DIFFICULTIES[random.nextInt(DIFFICULTIES.length)],
+                random.nextInt(11), 10, 30 + random.nextInt(300), start.plusMinutes(37L * i)));
+        }
+        profile.setPreferredDifficulty("Hard");
+        profile.setPreferredTheme("Dark");
+        return profile;
+    }
+
+    /**
+     * Write a profile the way older versions did: the serialized object,
+     * with badges and points held in its own fields
+     */
+    static void writeLegacy(UserProfile profile, File file) throws Exception {
+        Field badges = UserProfile.class.getDeclaredField("earnedBadges");
+        Field points = UserProfile.class.getDeclaredField("achievementPoints");
+        badges.setAccessible(true);
+        points.setAccessible(true);
+        badges.set(profile, new ArrayList<>(profile.getEarnedBadges()));
+        points.setInt(profile, profile.getAchievementPoints());
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+            out.writeObject(profile);
+        }
+    }
+
+    static void checkSameProfile(UserProfile expected, UserProfile actual) {
+        String name = expected.getUsername();
+        check(name.equals(actual.getUsername()), name + ": username");
+        check(expected.getTotalQuizzesTaken() == actual.getTotalQuizzesTaken(), name + ": quizzes taken");
+        check(expected.getAchievementPoints() == actual.getAchievementPoints(), name + ": achievement points");
+        check(new HashSet<>(expected.getEarnedBadges()).equals(new HashSet<>(actual.getEarnedBadges())),
+            name + ": badges");
+        check(Objects.equals(expected.getPreferredDifficulty(), actual.getPreferredDifficulty())
+            && Objects.equals(expected.getPreferredTheme(), actual.getPreferredTheme()), name + ": preferences");
+        check(describe(expected.getQuizHistory()).equals(describe(actual.getQuizHistory())), name + ": history");
+    }
+
+    private static Map<String, List<String>> describe(Map<String, List<QuizResult>> history) {
+        Map<String, List<String>> described = new TreeMap<>();
+        for (Map.Entry<String, List<QuizResult>> entry : history.entrySet()) {
+            List<String> results = new ArrayList<>();
+            for (QuizResult result : entry.getValue()) {
+                results.add(result.getDomain() + "|" + result.getDifficulty() + "|" + result.getCorrectAnswers()
+                    + "/" + result.getTotalQuestions() + "|" + result.getTimeTakenSeconds()
+                    + "|" + result.getCompletionDate());
+            }
+            described.put(entry.getKey(), results);
+        }
+        return described;
+    }
+
+    static void check(boolean passed, String description) {
+        checks++;
+        if (!passed) {
+            failures++;
+        }
+        System.out.println((passed ? "  PASS  " : "  FAIL  ") + description);
+    }
+}
@@ -55,14 +55,13 @@ public class Question implements Serializable {
     public String getExplanation() {
         return explanation;
     }
+    
+    /**
+     * Normalized question text used to spot repeated questions:
+     * lower case, with punctuation and runs of whitespace collapsed
+     */
+    public String getFingerprint() {
+        return text.toLowerCase().replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
 }
 
-/**
- * Enum for different question types
- */
-enum QuestionType {
-    MULTIPLE_CHOICE,
-    TRUE_FALSE,
-    FILL_IN_BLANK,
-    MATCHING
-}
\ No newline at end of file
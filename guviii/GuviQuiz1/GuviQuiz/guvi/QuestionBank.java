@@ -3,6 +3,10 @@
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * AI-Powered Question Bank that generates all questions from Gemini AI
@@ -11,7 +15,24 @@ import java.util.*;
 public class QuestionBank {
     private Config config;
     private GeminiQuestionGenerator geminiGenerator;
-    private Map<String, List<Question>> sessionCache;
+    private QuestionPool questionPool;
+    private RetryPolicy retryPolicy;
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+    // When the last shared generation per domain and difficulty started
+    private final ConcurrentHashMap<String, Long> flightStarts = new ConcurrentHashMap<>();
+    private static final long FLIGHT_BURST_MILLIS = 2_000;
+    private final AtomicLong sharedFlightCount = new AtomicLong();
+    // Finishes streamed quizzes; a short stream is topped up with a blocking
+    // generation, which must not hold the stream reader or the caller
+    private static final ExecutorService STREAM_FINISHER = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "question-stream-finisher");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final Metrics.Counter RETRIES = Metrics.counter("gemini_retries_total",
+        "Gemini generations retried after a failed or short attempt");
+    private static final Metrics.Counter FALLBACKS = Metrics.counter("question_fallbacks_total",
+        "Quizzes served offline or placeholder questions because Gemini gave none");
     private static final String[] DEFAULT_DOMAINS = {
         "Java Programming", "Python Programming", "Data Structures",
         "Algorithms", "Database Systems", "Web Development",
@@ -21,19 +42,109 @@ public class QuestionBank {
         "Machine Learning", "Cybersecurity", "Cloud Computing"
     };
     
+    /**
+     * One generation shared by concurrent callers asking for the same domain
+     * and difficulty. Each caller reserves its count, and with it a slice of
+     * the batch, before the generation is sent; the batch is sized to the
+     * reservations, so no two callers get the same question. Once sealed,
+     * or once a reservation would exceed the flight's capacity, callers
+     * start a new flight.
+     */
+    private static final class Flight {
+        final CompletableFuture<List<Question>> batch = new CompletableFuture<>();
+        private final int capacity;
+        private int reserved;
+        private int participants = 1;
+        private int claims;
+        private boolean sealed;
+
+        Flight(int count, int capacity) {
+            this.reserved = count;
+            this.capacity = Math.max(count, capacity);
+        }
+
+        /**
+         * Reserve the next count questions of the batch
+         *
+         * @return the offset of the reserved slice, or -1 if the flight is
+         *         sealed or has no room for count more
+         */
+        synchronized int reserve(int count) {
+            if (sealed || reserved + count > capacity) {
+                return -1;
+            }
+            int offset = reserved;
+            reserved += count;
+            participants++;
+            return offset;
+        }
+
+        /**
+         * Stop taking reservations
+         *
+         * @return the number of questions reserved
+         */
+        synchronized int seal() {
+            sealed = true;
+            return reserved;
+        }
+
+        /**
+         * Wait for the batch and take the slice reserved at offset, which is
+         * short only if the batch is
+         *
+         * @param leftovers receives anything beyond the reservations if this is the last claim
+         */
+        List<Question> claim(int offset, int count, List<Question> leftovers) {
+            List<Question> questions = batch.join();
+            synchronized (this) {
+                int size = questions.size();
+                List<Question> mine = new ArrayList<>(questions.subList(Math.min(offset, size), Math.min(offset + count, size)));
+                if (++claims == participants && reserved < size) {
+                    leftovers.addAll(questions.subList(reserved, size));
+                }
+                return mine;
+            }
+        }
+    }
+    
     public QuestionBank() {
         this.config = new Config();
-        this.sessionCache = new HashMap<>();
+        this.questionPool = QuestionPool.shared(config);
+        this.retryPolicy = RetryPolicy.fromConfig(config);
         
-        // Initialize Gemini generator if API key is configured
+        // Initialize Gemini generator if any API key is configured
         if (config.isGeminiApiKeyConfigured()) {
-            this.geminiGenerator = new GeminiQuestionGenerator(config.getGeminiApiKey());
+            this.geminiGenerator = new GeminiQuestionGenerator(config.getGeminiApiKeys(), config.getGeminiApiBaseUrl());
+            configureGenerator();
         } else {
             System.err.println("⚠ Warning: Gemini API key not configured!");
             System.err.println("Please run: java GeminiSetup");
         }
     }
     
+    /**
+     * Create a question bank around an existing generator and pool, e.g. one
+     * pointed at MockGeminiServer for offline load testing
+     */
+    QuestionBank(Config config, GeminiQuestionGenerator geminiGenerator, QuestionPool questionPool) {
+        this.config = config;
+        this.questionPool = questionPool;
+        this.geminiGenerator = geminiGenerator;
+        this.retryPolicy = RetryPolicy.fromConfig(config);
+        if (geminiGenerator != null) {
+            configureGenerator();
+        }
+    }
+    
+    private void configureGenerator() {
+        geminiGenerator.getCircuitBreaker().configure(config.getCircuitFailureThreshold(), config.getCircuitOpenMillis());
+        geminiGenerator.getScheduler().configure(config.getRateLimitRequestsPerMinute(),
+            config.getRateLimitTokensPerMinute(), config.getRateLimitMaxWaitMillis());
+        geminiGenerator.getHedger().configure(config.isHedgingEnabled(), config.getHedgePercentile(),
+            config.getHedgeMaxPercent(), config.getHedgeMinDelayMillis());
+    }
+    
     /**
      * Get available domains for quiz
      */
@@ -50,88 +161,355 @@ public class QuestionBank {
     
     /**
      * Get questions for a specific domain and difficulty
-     * ALL questions are generated fresh from Gemini AI
+     * Questions are served from the pre-generated pool; only a shortfall
+     * is generated from Gemini on the caller's thread
      */
     public List<Question> getQuestionsForDomain(String domain, String difficulty, int count) {
-        System.out.println("\n Generating " + count + " fresh AI questions...");
+        System.out.println("\n Getting " + count + " AI questions...");
         System.out.println("Domain: " + domain + " | Difficulty: " + difficulty);
         
+        List<Question> questions = questionPool.take(domain, difficulty, count);
+        if (!questions.isEmpty()) {
+            System.out.println(" Served " + questions.size() + " questions from pool");
+        }
+        
         // Check if Gemini is configured
         if (geminiGenerator == null) {
             System.err.println(" Gemini AI is not configured!");
-            return getFallbackQuestions(domain, difficulty, count);
+            return questions.isEmpty() ? getFallbackQuestions(domain, difficulty, count) : questions;
         }
         
-        // Generate fresh questions from Gemini
-        List<Question> questions = generateFreshQuestions(domain, difficulty, count);
+        // Generate any shortfall fresh from Gemini
+        if (questions.size() < count) {
+            questions.addAll(generateShared(domain, difficulty, count - questions.size()));
+        }
+        
+        // Top the pool back up in the background
+        prewarm(domain, difficulty);
         
         if (questions.isEmpty()) {
             System.err.println(" Failed to generate questions, using fallback");
             return getFallbackQuestions(domain, difficulty, count);
         }
         
-        // Cache for the current session (to show in review)
-        String cacheKey = domain + "_" + difficulty;
-        sessionCache.put(cacheKey, questions);
-        
-        System.out.println(" Successfully generated " + questions.size() + " unique questions\n");
+        System.out.println(" Successfully prepared " + questions.size() + " unique questions\n");
         return questions;
     }
     
     /**
-     * Generate fresh questions from Gemini AI with retry logic
+     * Deliver questions one at a time as they become available.
+     * Pooled questions are handed over immediately; any shortfall is
+     * streamed from Gemini, so the first question can be shown before
+     * the rest have been generated. The future completes with the full list.
+     */
+    public CompletableFuture<List<Question>> streamQuestionsForDomain(String domain, String difficulty,
+                                                                     int count, Consumer<Question> onQuestion) {
+        return streamQuestionsForDomain(domain, difficulty, count, null, onQuestion);
+    }
+    
+    /**
+     * Stream questions as above, skipping any the user has already seen.
+     * Seen questions from Gemini are put in the pool for other users.
+     *
+     * @param seen the user's seen questions, or null to serve anything
      */
-    private List<Question> generateFreshQuestions(String domain, String difficulty, int count) {
-        int maxRetries = 3;
-        int attempt = 0;
+    public CompletableFuture<List<Question>> streamQuestionsForDomain(String domain, String difficulty, int count,
+                                                                     SeenQuestionFilter seen,
+                                                                     Consumer<Question> onQuestion) {
+        Predicate<Question> unseen = q -> seen == null || !seen.mightContain(q);
+        List<Question> pooled = questionPool.take(domain, difficulty, count, unseen);
+        pooled.forEach(onQuestion);
         
-        while (attempt < maxRetries) {
-            try {
-                List<Question> questions = geminiGenerator.generateQuestions(domain, difficulty, count);
+        if (pooled.size() >= count) {
+            prewarm(domain, difficulty);
+            return CompletableFuture.completedFuture(pooled);
+        }
+        
+        if (geminiGenerator == null) {
+            System.err.println(" Gemini AI is not configured!");
+            return CompletableFuture.completedFuture(
+                pooled.isEmpty() ? deliverFallback(domain, difficulty, count, unseen, onQuestion) : pooled);
+        }
+        
+        int remaining = count - pooled.size();
+        List<Question> delivered = new ArrayList<>(pooled);
+        List<Question> alreadySeen = new ArrayList<>();
+        NearDuplicateIndex quiz = new NearDuplicateIndex();
+        pooled.forEach(quiz::add);
+        Consumer<Question> deliver = q -> {
+            synchronized (delivered) {
+                if (!quiz.add(q)) {
+                    return; // Paraphrase of a question already in this quiz
+                }
+                if (!unseen.test(q)) {
+                    alreadySeen.add(q);
+                    return;
+                }
+                if (delivered.size() >= count) {
+                    return;
+                }
+                delivered.add(q);
+            }
+            onQuestion.accept(q);
+        };
+        
+        return geminiGenerator.generateQuestionsStreaming(domain, difficulty, remaining, deliver)
+            .handleAsync((streamed, error) -> {
+                if (error != null) {
+                    System.err.println(" Streaming generation failed: " + error.getMessage());
+                }
                 
-                if (questions.size() >= count) {
-                    return questions;
-                } else if (!questions.isEmpty()) {
-                    // Got some questions but not enough, try to get more
-                    int remaining = count - questions.size();
-                    System.out.println("Got " + questions.size() + " questions, generating " + remaining + " more...");
-                    
-                    List<Question> additionalQuestions = geminiGenerator.generateQuestions(domain, difficulty, remaining);
-                    questions.addAll(additionalQuestions);
-                    
-                    if (questions.size() >= count) {
-                        return questions.subList(0, count);
-                    }
+                // Top up a short stream with the blocking path (with retries)
+                int shortfall;
+                synchronized (delivered) {
+                    shortfall = count - delivered.size();
+                }
+                if (shortfall > 0) {
+                    generateShared(domain, difficulty, shortfall).forEach(deliver);
                 }
                 
-                attempt++;
-                if (attempt < maxRetries) {
-                    System.out.println(" Retry attempt " + attempt + " of " + maxRetries);
-                    Thread.sleep(1000); // Wait before retry
+                List<Question> questions;
+                synchronized (delivered) {
+                    questions = new ArrayList<>(delivered);
+                    questionPool.add(domain, difficulty, alreadySeen);
                 }
                 
-            } catch (Exception e) {
-                System.err.println(" Error generating questions (attempt " + (attempt + 1) + "): " + e.getMessage());
-                attempt++;
+                prewarm(domain, difficulty);
                 
-                if (attempt < maxRetries) {
-                    try {
-                        Thread.sleep(2000); // Wait longer before retry
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                    }
+                if (questions.isEmpty()) {
+                    System.err.println(" Failed to generate questions, using fallback");
+                    return deliverFallback(domain, difficulty, count, unseen, onQuestion);
+                }
+                return questions;
+            }, STREAM_FINISHER);
+    }
+    
+    private List<Question> deliverFallback(String domain, String difficulty, int count,
+                                           Predicate<Question> prefer, Consumer<Question> onQuestion) {
+        List<Question> fallback = getFallbackQuestions(domain, difficulty, count, prefer);
+        fallback.forEach(onQuestion);
+        return fallback;
+    }
+    
+    /**
+     * Start filling the pool for a domain and difficulty in the background
+     * so that a quiz about to start can be served instantly. Refills queue
+     * behind interactive requests for the Gemini quota.
+     */
+    public void prewarm(String domain, String difficulty) {
+        if (geminiGenerator != null && geminiGenerator.isAvailable()) {
+            questionPool.requestRefill(domain, difficulty,
+                (d, level, count) -> generateFreshQuestions(d, level, count, GeminiRequestScheduler.Priority.BACKGROUND));
+        }
+    }
+    
+    /**
+     * Generate questions for a quiz, sharing the generation with any other
+     * quiz that asks for the same domain and difficulty before it is sent,
+     * so a class starting together costs one Gemini call per batch instead
+     * of one per student. A lone quiz is sent at once; a flight only waits
+     * for others to join when another one for the key started within
+     * FLIGHT_BURST_MILLIS, i.e. quizzes are arriving together.
+     */
+    private List<Question> generateShared(String domain, String difficulty, int count) {
+        String key = domain + "|" + difficulty;
+        
+        // Past the fan-out threshold a batch costs a call per chunk, which
+        // is no cheaper than each quiz asking on its own
+        Flight mine = new Flight(count, config.getFanOutThreshold() - 1);
+        int[] offset = {0};
+        boolean[] burst = {false};
+        Flight flight = flights.compute(key, (k, existing) -> {
+            if (existing != null) {
+                offset[0] = existing.reserve(count);
+                if (offset[0] >= 0) {
+                    return existing;
+                }
+            }
+            offset[0] = 0;
+            long now = System.currentTimeMillis();
+            Long previous = flightStarts.put(key, now);
+            burst[0] = previous != null && now - previous < FLIGHT_BURST_MILLIS;
+            return mine; // None, sealed or full: start a new flight
+        });
+        
+        if (flight == mine) {
+            List<Question> batch = Collections.emptyList();
+            if (burst[0]) {
+                try {
+                    // Let quizzes starting at the same moment reserve their share
+                    Thread.sleep(config.getFlightGatherMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
             }
+            // Reservations are fixed from here; later callers start a new flight
+            int total = flight.seal();
+            flights.remove(key, flight);
+            try {
+                batch = generateFreshQuestions(domain, difficulty, total, GeminiRequestScheduler.Priority.INTERACTIVE);
+            } finally {
+                flight.batch.complete(batch);
+            }
+        } else {
+            sharedFlightCount.incrementAndGet();
+            System.out.println(" Joining an in-flight generation for " + domain + " (" + difficulty + ")");
         }
         
-        return new ArrayList<>();
+        List<Question> leftovers = new ArrayList<>();
+        List<Question> questions = flight.claim(offset[0], count, leftovers);
+        if (!leftovers.isEmpty()) {
+            questionPool.add(domain, difficulty, leftovers);
+        }
+        return questions;
     }
     
     /**
-     * Fallback questions in case Gemini fails
-     * These are basic questions to keep the app functional
+     * Generate fresh questions from Gemini AI.
+     * Large requests are fanned out into concurrent chunks
      */
+    private List<Question> generateFreshQuestions(String domain, String difficulty, int count,
+                                                  GeminiRequestScheduler.Priority priority) {
+        if (count < config.getFanOutThreshold()) {
+            return generateWithRetries(domain, difficulty, count, priority);
+        }
+        
+        List<Question> questions = generateFanOut(domain, difficulty, count, priority);
+        if (questions.size() < count) {
+            int remaining = count - questions.size();
+            System.out.println("Fan-out returned " + questions.size() + " questions, generating " + remaining + " more...");
+            questions.addAll(generateWithRetries(domain, difficulty, remaining, priority));
+            questions = NearDuplicateIndex.distinct(questions);
+        }
+        return questions;
+    }
+    
+    /**
+     * Split a large request into concurrent sub-requests of fanout.chunk.size
+     * questions. Results are merged with near-duplicates dropped, and the call
+     * returns as soon as enough unique questions are in hand or every chunk
+     * has finished.
+     */
+    private List<Question> generateFanOut(String domain, String difficulty, int count,
+                                          GeminiRequestScheduler.Priority priority) {
+        int chunkSize = config.getFanOutChunkSize();
+        int chunks = (count + chunkSize - 1) / chunkSize;
+        System.out.println("Fanning out " + count + " questions into " + chunks + " concurrent requests");
+        
+        List<Question> unique = new ArrayList<>();
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        CompletableFuture<Void> enough = new CompletableFuture<>();
+        List<CompletableFuture<List<Question>>> calls = new ArrayList<>();
+        List<CompletableFuture<List<Question>>> requests = new ArrayList<>();
+        
+        for (int i = 0; i < chunks; i++) {
+            int size = Math.min(chunkSize, count - i * chunkSize);
+            CompletableFuture<List<Question>> call = geminiGenerator.generateQuestionsAsync(domain, difficulty, size, priority);
+            calls.add(call);
+            requests.add(call
+                .whenComplete((questions, error) -> {
+                    if (error != null) {
+                        System.err.println(" Chunk failed: " + error.getMessage());
+                        return;
+                    }
+                    synchronized (unique) {
+                        for (Question q : questions) {
+                            if (index.add(q)) {
+                                unique.add(q);
+                            }
+                        }
+                        if (unique.size() >= count) {
+                            enough.complete(null);
+                        }
+                    }
+                }));
+        }
+        
+        CompletableFuture<Void> allDone = CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0]));
+        try {
+            CompletableFuture.anyOf(enough, allDone).join();
+        } catch (CompletionException e) {
+            // Individual chunk failures were already reported
+        }
+        
+        // Withdraw stragglers once we have enough
+        calls.forEach(call -> call.cancel(true));
+        
+        synchronized (unique) {
+            List<Question> questions = new ArrayList<>(unique);
+            return questions.size() > count ? new ArrayList<>(questions.subList(0, count)) : questions;
+        }
+    }
+    
+    /**
+     * Generate questions with a single prompt, retrying per the retry policy.
+     * Short responses are topped up by the next attempt. Returns what it
+     * has (possibly nothing) as soon as a retry would not fit the time
+     * budget, e.g. while the circuit breaker is open or every key is
+     * benched, so the caller can fall back to the pool or offline store.
+     */
+    private List<Question> generateWithRetries(String domain, String difficulty, int count,
+                                               GeminiRequestScheduler.Priority priority) {
+        List<Question> questions = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + retryPolicy.getBudgetMillis();
+        
+        for (int attempt = 1; ; attempt++) {
+            Exception failure = null;
+            try {
+                questions.addAll(geminiGenerator.fetchQuestions(domain, difficulty, count - questions.size(), priority));
+                questions = NearDuplicateIndex.distinct(questions);
+                if (questions.size() >= count) {
+                    return new ArrayList<>(questions.subList(0, count));
+                }
+                System.out.println("Got " + questions.size() + " questions, need " + (count - questions.size()) + " more...");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return questions;
+            } catch (Exception e) {
+                failure = e;
+                System.err.println(" Error generating questions (attempt " + attempt + "): " + e.getMessage());
+            }
+            
+            if (attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(failure)) {
+                return questions;
+            }
+            long delay = retryPolicy.delayMillis(attempt);
+            if (System.currentTimeMillis() + delay > deadline) {
+                System.err.println(" Not retrying: next attempt in " + delay + "ms is past the retry budget");
+                return questions;
+            }
+            
+            System.out.println(" Retry attempt " + attempt + " of " + (retryPolicy.getMaxAttempts() - 1) + " in " + delay + "ms");
+            RETRIES.increment();
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return questions;
+            }
+        }
+    }
+    
     private List<Question> getFallbackQuestions(String domain, String difficulty, int count) {
+        return getFallbackQuestions(domain, difficulty, count, q -> true);
+    }
+    
+    /**
+     * Fallback questions in case Gemini fails
+     * Drawn from the offline question store (a mixed corpus such as Science,
+     * or General Knowledge, for domains it has no corpus of their own for);
+     * placeholders only if no corpus is installed
+     */
+    private List<Question> getFallbackQuestions(String domain, String difficulty, int count, Predicate<Question> prefer) {
+        FALLBACKS.increment();
+        OfflineQuestionStore offlineStore = OfflineQuestionStore.shared(config);
+        String offlineDomain = offlineStore.fallbackDomain(domain);
+        List<Question> offline = offlineStore.sample(offlineDomain, difficulty, count, prefer);
+        if (!offline.isEmpty()) {
+            System.out.println(" Serving " + offline.size() + " offline questions from " + offlineDomain);
+            return offline;
+        }
+        
         List<Question> fallbackQuestions = new ArrayList<>();
         
         // Create basic fallback questions
@@ -168,13 +546,12 @@ public class QuestionBank {
         
         try {
             System.out.print("Testing Gemini AI connection... ");
-            List<Question> testQuestions = geminiGenerator.generateQuestions("General Knowledge", "Easy", 1);
-            boolean success = !testQuestions.isEmpty();
+            boolean success = geminiGenerator.testConnection();
             
             if (success) {
                 System.out.println(" Success!");
             } else {
-                System.out.println(" Failed - No questions generated");
+                System.out.println(" Failed - Gemini API not reachable");
             }
             
             return success;
@@ -200,8 +577,7 @@ public class QuestionBank {
             List<Question> questions = geminiGenerator.generateQuestions(domain, difficulty, count);
             
             if (!questions.isEmpty()) {
-                String cacheKey = domain + "_" + difficulty;
-                sessionCache.put(cacheKey, questions);
+                questionPool.add(domain, difficulty, questions);
                 System.out.println(" Generated " + questions.size() + " questions");
             } else {
                 System.err.println(" No questions generated");
@@ -211,25 +587,46 @@ public class QuestionBank {
         }
     }
     
+    /**
+     * Clear the question pool
+     */
+    public void clearQuestionPool() {
+        questionPool.clear();
+        System.out.println("Question pool cleared");
+    }
+    
     /**
      * Clear session cache
+     *
+     * @deprecated questions are pooled across sessions now; use clearQuestionPool()
      */
+    @Deprecated
     public void clearSessionCache() {
-        sessionCache.clear();
-        System.out.println("Session cache cleared");
+        clearQuestionPool();
     }
     
     /**
-     * Get statistics about generated questions
+     * Get number of pooled questions per domain and difficulty, keyed
+     * "domain (difficulty)". These are questions waiting to be served;
+     * before the pool this counted the questions generated this session.
      */
     public Map<String, Integer> getGenerationStats() {
-        Map<String, Integer> stats = new HashMap<>();
-        
-        for (Map.Entry<String, List<Question>> entry : sessionCache.entrySet()) {
-            stats.put(entry.getKey(), entry.getValue().size());
-        }
-        
-        return stats;
+        return questionPool.getPoolSizes();
+    }
+    
+    /**
+     * Get number of quizzes that were served by joining another quiz's
+     * in-flight generation instead of starting their own
+     */
+    public long getSharedFlightCount() {
+        return sharedFlightCount.get();
+    }
+    
+    /**
+     * Get the question pool
+     */
+    public QuestionPool getQuestionPool() {
+        return questionPool;
     }
     
     /**
@@ -247,11 +644,13 @@ public class QuestionBank {
     }
     
     /**
-     * Reinitialize Gemini generator with new API key
+     * Reinitialize Gemini generator with new API key, alongside any other
+     * keys in gemini.api.keys
      */
     public void reinitializeGemini(String apiKey) {
         config.setGeminiApiKey(apiKey);
-        this.geminiGenerator = new GeminiQuestionGenerator(apiKey);
+        this.geminiGenerator = new GeminiQuestionGenerator(config.getGeminiApiKeys(), config.getGeminiApiBaseUrl());
+        configureGenerator();
         System.out.println("Gemini generator reinitialized");
     }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Offline throughput and tail-latency test for QuestionBank.
+ * Starts a MockGeminiServer with a long-tailed latency profile and some
+ * injected failures, then runs concurrent clients that each fetch a quiz's
+ * worth of questions, and reports throughput and latency percentiles.
+ * With a requests-per-minute quota, the mock enforces it per API key and the
+ * request scheduler is set to stay under it; otherwise the scheduler is
+ * unlimited. Calls are spread over the given number of mock keys, and
+ * slow interactive calls may be hedged up to the given percentage of calls.
+ *
+ * Usage: java QuestionBankLoadTest [clients] [requests-per-client] [questions-per-request] [rpm] [keys] [hedge-percent]
+ */
+public class QuestionBankLoadTest {
+    private static final String[] DOMAINS = {"Java Programming", "Mathematics", "History"};
+    private static final String[] DIFFICULTIES = {"Easy", "Medium", "Hard"};
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int questionsPerRequest = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int requestsPerMinute = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        int keyCount = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+        int hedgePercent = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+
+        MockGeminiServer mock = new MockGeminiServer(0);
+        mock.setLatency(MockGeminiServer.LatencyDistribution.LOG_NORMAL, 200, 2000);
+        mock.setErrorRates(0.02, 0.02);
+        mock.setBadBodyRates(0.02, 0.02);
+        mock.setMaxRequestsPerMinute(requestsPerMinute);
+        mock.start();
+
+        System.out.println("=".repeat(70));
+        System.out.println("    QUESTION BANK LOAD TEST");
+        System.out.println("=".repeat(70));
+        System.out.println("Mock Gemini: " + mock.getBaseUrl());
+        System.out.println("Clients: " + clients + " | Requests/client: " + requestsPerClient
+            + " | Questions/request: " + questionsPerRequest + " | API keys: " + keyCount
+            + " | Hedging: " + (hedgePercent > 0 ? "up to " + hedgePercent + "%" : "off"));
+
+        // Keep mock questions out of the real pool/ directory
+        Config config = new Config();
+        File poolDirectory = Files.createTempDirectory("question-pool-load").toFile();
+        QuestionPool questionPool = new QuestionPool(poolDirectory, config.getPoolTargetSize(),
+            config.getPoolLowWaterMark(), config.getPoolRefillBatchSize());
+        List<String> keys = new ArrayList<>();
+        for (int k = 1; k <= keyCount; k++) {
+            keys.add("mock-key-" + k);
+        }
+        GeminiQuestionGenerator generator = new GeminiQuestionGenerator(keys, mock.getBaseUrl());
+        QuestionBank questionBank = new QuestionBank(config, generator, questionPool);
+        generator.getScheduler().configure(requestsPerMinute, 0, config.getRateLimitMaxWaitMillis());
+        generator.getHedger().configure(hedgePercent > 0, config.getHedgePercentile(), hedgePercent,
+            config.getHedgeMinDelayMillis());
+
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger shortRequests = new AtomicInteger();
+        AtomicLong questionsServed = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int c = 0; c < clients; c++) {
+            final int client = c;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int r = 0; r < requestsPerClient; r++) {
+                    String domain = DOMAINS[(client + r) % DOMAINS.length];
+                    String difficulty = DIFFICULTIES[client % DIFFICULTIES.length];
+
+                    long begin = System.nanoTime();
+                    List<Question> questions = questionBank.getQuestionsForDomain(domain, difficulty, questionsPerRequest);
+                    latencies[next.getAndIncrement()] = System.nanoTime() - begin;
+
+                    questionsServed.addAndGet(questions.size());
+                    if (questions.size() < questionsPerRequest) {
+                        shortRequests.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        double seconds = elapsed / 1e9;
+
+        System.out.println("\n" + "=".repeat(70));
+        System.out.println("    RESULTS");
+        System.out.println("=".repeat(70));
+        System.out.printf("Requests:          %d in %.2f s (%.1f req/s)%n", latencies.length, seconds, latencies.length / seconds);
+        System.out.printf("Questions served:  %d (%.1f q/s)%n", questionsServed.get(), questionsServed.get() / seconds);
+        System.out.printf("Short requests:    %d%n", shortRequests.get());
+        System.out.printf("Gemini calls:      %d (%d errors injected)%n", mock.getRequestCount(), mock.getErrorCount());
+        System.out.printf("Scheduler:         %d sent, %d coalesced, %d timed out in queue%n",
+            generator.getScheduler().getDispatchedCount(), generator.getScheduler().getCoalescedCount(),
+            generator.getScheduler().getTimedOutCount());
+        System.out.printf("Hedging:           %d of %d calls hedged, %d hedges won%n",
+            generator.getHedger().getHedgeCount(), generator.getHedger().getCallCount(),
+            generator.getHedger().getHedgeWinCount());
+        System.out.printf("Single-flight:     %d quizzes joined an in-flight generation%n",
+            questionBank.getSharedFlightCount());
+        for (String key : generator.getScheduler().getKeyPool().describe()) {
+            System.out.println("  Key " + key);
+        }
+        System.out.printf("Latency p50:       %8.1f ms%n", percentile(latencies, 50));
+        System.out.printf("Latency p90:       %8.1f ms%n", percentile(latencies, 90));
+        System.out.printf("Latency p99:       %8.1f ms%n", percentile(latencies, 99));
+        System.out.printf("Latency max:       %8.1f ms%n", latencies[latencies.length - 1] / 1e6);
+
+        mock.stop();
+        System.exit(0);
+    }
+
+    /**
+     * Nearest-rank percentile of sorted nanosecond samples, in milliseconds
+     */
+    private static double percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,192 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Binds Gemini JSON straight onto Question objects using JsonReader.
+ * Understands both the generateContent envelope and the model's own
+ * array of {question, options, correctIndex, explanation} objects.
+ */
+public class QuestionBinder {
+
+    private QuestionBinder() {
+    }
+
+    /**
+     * Concatenate the text parts of the first candidate in a Gemini response
+     */
+    public static String readCandidateText(JsonReader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("candidates") || reader.peek() != JsonReader.Token.BEGIN_ARRAY) {
+                reader.skipValue();
+                continue;
+            }
+
+            reader.beginArray();
+            if (reader.hasNext()) {
+                readCandidate(reader, text);
+            }
+            while (reader.hasNext()) {
+                reader.skipValue();
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+
+        return text.toString();
+    }
+
+    private static void readCandidate(JsonReader reader, StringBuilder text) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("content") || reader.peek() != JsonReader.Token.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("parts") || reader.peek() != JsonReader.Token.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.nextName().equals("text") && reader.peek() == JsonReader.Token.STRING) {
+                            text.append(reader.nextString());
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Read the model's question array out of its text output.
+     * Markdown fences or prose before the array are skipped.
+     */
+    public static List<Question> readQuestions(CharSequence modelText, String difficulty) throws IOException {
+        int start = indexOf(modelText, '[');
+        if (start == -1) {
+            return new ArrayList<>();
+        }
+        return readQuestions(new JsonReader(modelText, start, modelText.length()), difficulty);
+    }
+
+    /**
+     * Read an array of question objects. Invalid entries and near-duplicates
+     * of earlier entries are skipped, and if the array is cut off the
+     * questions read so far are returned.
+     */
+    public static List<Question> readQuestions(JsonReader reader, String difficulty) throws IOException {
+        List<Question> questions = new ArrayList<>();
+        NearDuplicateIndex batch = new NearDuplicateIndex();
+
+        reader.beginArray();
+        try {
+            while (reader.hasNext()) {
+                if (reader.peek() != JsonReader.Token.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                Question q = readQuestion(reader, difficulty);
+                if (q != null && batch.add(q)) {
+                    questions.add(q);
+                }
+            }
+            reader.endArray();
+        } catch (IOException e) {
+            System.err.println("Question array truncated after " + questions.size() + " questions: " + e.getMessage());
+        }
+
+        return questions;
+    }
+
+    /**
+     * Read one question object, or return null if it is not usable
+     */
+    public static Question readQuestion(JsonReader reader, String difficulty) throws IOException {
+        String questionText = "";
+        List<String> options = new ArrayList<>();
+        int correctIndex = 0;
+        String explanation = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonReader.Token token = reader.peek();
+
+            if (name.equals("question") && token == JsonReader.Token.STRING) {
+                questionText = reader.nextString().trim();
+            } else if (name.equals("options") && token == JsonReader.Token.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (reader.peek() == JsonReader.Token.BEGIN_ARRAY || reader.peek() == JsonReader.Token.BEGIN_OBJECT
+                            || reader.peek() == JsonReader.Token.NULL) {
+                        reader.skipValue();
+                    } else {
+                        options.add(reader.nextString());
+                    }
+                }
+                reader.endArray();
+            } else if (name.equals("correctIndex")
+                    && (token == JsonReader.Token.NUMBER || token == JsonReader.Token.STRING)) {
+                try {
+                    correctIndex = reader.nextInt();
+                } catch (IOException e) {
+                    reader.skipValue();
+                    correctIndex = 0;
+                }
+            } else if (name.equals("explanation") && token == JsonReader.Token.STRING) {
+                explanation = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        // Validate
+        if (questionText.isEmpty() || options.size() < 4) {
+            System.err.println("Invalid question: text=" + questionText + ", options=" + options.size());
+            return null;
+        }
+
+        if (correctIndex < 0 || correctIndex >= options.size()) {
+            System.err.println("Invalid correctIndex: " + correctIndex);
+            correctIndex = 0; // Default to first option
+        }
+
+        // Shuffle so the answer isn't always where the model put it
+        String correctAnswer = options.get(correctIndex);
+        Collections.shuffle(options);
+
+        return new Question(
+            questionText,
+            options,
+            options.indexOf(correctAnswer),
+            difficulty,
+            QuestionType.MULTIPLE_CHOICE,
+            explanation
+        );
+    }
+
+    private static int indexOf(CharSequence text, char c) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
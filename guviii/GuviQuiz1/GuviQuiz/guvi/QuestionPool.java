@@ -0,0 +1,796 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+
+/**
+ * Persistent pool of ready-to-serve questions per (domain, difficulty).
+ * Quizzes are served from the pool while a background refiller keeps it
+ * topped up from Gemini, so the slow API call stays off the request path.
+ * Each pool rejects near-duplicates of questions it already holds.
+ *
+ * A pool is kept on disk as a memory-mapped MappedQuestionStore, so it
+ * opens in milliseconds and its questions need not fit in the heap. On
+ * the heap are only a bit per stored question (taken or not), the
+ * near-duplicate signatures (about 300 bytes a question, built on the
+ * first add and kept up to date from then on) and the questions added
+ * since the store was written; a stored question is materialized when it
+ * is taken.
+ *
+ * Files per pool, all named pool/<domain>_<difficulty>.<generation>.*:
+ *   qzs     the store
+ *   taken   bitmap of the store's taken questions
+ *   added   questions added since, as a small store
+ * After changes the writer thread rewrites the two small files, once for
+ * any burst of changes. Only when taken and added questions together
+ * outnumber half the store does it fold them into a new store generation.
+ * Pools saved as serialized lists by older versions are imported on first
+ * use.
+ */
+public class QuestionPool {
+    private static final String POOL_DIR = "pool";
+    // Fewest taken plus added questions that make a new store generation worthwhile
+    private static final int COMPACT_MIN_CHANGES = 64;
+    // Rejected questions a filtered take reads before giving up
+    private static final int MAX_REJECTS = 256;
+    private static QuestionPool sharedInstance;
+
+    private final File directory;
+    private final Map<PoolKey, Pool> pools;
+    private final Set<PoolKey> refillsInFlight;
+    private final Set<PoolKey> writesPending;
+    private final ExecutorService refiller;
+    private final ExecutorService writer;
+    private final int targetSize;
+    private final int lowWaterMark;
+    private final int refillBatchSize;
+
+    /**
+     * Source of new questions used by the refiller
+     */
+    public interface QuestionSource {
+        List<Question> generate(String domain, String difficulty, int count);
+    }
+
+    /**
+     * The questions of one (domain, difficulty): those in the mapped store
+     * not yet taken, then those added since it was written. Guarded by its
+     * own monitor.
+     */
+    private static final class Pool {
+        MappedQuestionStore store;
+        File storeFile;
+        long generation;
+        BitSet taken = new BitSet();
+        int storeLive;
+        int cursor; // Store id the next take starts reading at
+        final ArrayDeque<Question> added = new ArrayDeque<>();
+        boolean takenChanged; // Since the sidecar files were written
+        boolean addedChanged;
+        NearDuplicateIndex index;
+
+        int size() {
+            return storeLive + added.size();
+        }
+
+        boolean needsCompaction() {
+            int storeSize = store == null ? 0 : store.size();
+            return storeSize - storeLive + added.size() > Math.max(COMPACT_MIN_CHANGES, storeSize / 2);
+        }
+    }
+
+    public QuestionPool(int targetSize, int lowWaterMark, int refillBatchSize) {
+        this(new File(POOL_DIR), targetSize, lowWaterMark, refillBatchSize);
+    }
+
+    /**
+     * Create a pool persisted under the given directory instead of pool/
+     */
+    public QuestionPool(File directory, int targetSize, int lowWaterMark, int refillBatchSize) {
+        this.directory = directory;
+        this.pools = new ConcurrentHashMap<>();
+        this.refillsInFlight = ConcurrentHashMap.newKeySet();
+        this.writesPending = ConcurrentHashMap.newKeySet();
+        this.targetSize = Math.max(1, targetSize);
+        this.lowWaterMark = Math.max(0, Math.min(lowWaterMark, this.targetSize));
+        this.refillBatchSize = Math.max(1, refillBatchSize);
+        this.refiller = Executors.newSingleThreadExecutor(daemonThreads("question-pool-refiller"));
+        this.writer = Executors.newSingleThreadExecutor(daemonThreads("question-pool-writer"));
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Get the pool shared by every QuestionBank in this JVM
+     */
+    public static synchronized QuestionPool shared(Config config) {
+        if (sharedInstance == null) {
+            sharedInstance = new QuestionPool(
+                config.getPoolTargetSize(),
+                config.getPoolLowWaterMark(),
+                config.getPoolRefillBatchSize()
+            );
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Take up to count questions out of the pool. Never blocks on Gemini.
+     */
+    public List<Question> take(String domain, String difficulty, int count) {
+        return take(domain, difficulty, count, question -> true);
+    }
+
+    /**
+     * Take up to count questions that pass the filter; the rest stay pooled
+     * for other quizzes. Gives up after MAX_REJECTS rejected questions, so
+     * a quiz whose user has seen most of the pool does not read all of it.
+     */
+    public List<Question> take(String domain, String difficulty, int count, Predicate<Question> accept) {
+        PoolKey key = new PoolKey(domain, difficulty);
+        Pool pool = poolFor(key);
+        List<Question> taken = new ArrayList<>();
+        int rejected = takeFromStore(pool, count, accept, taken);
+
+        synchronized (pool) {
+            Iterator<Question> iterator = pool.added.iterator();
+            while (taken.size() < count && rejected < MAX_REJECTS && iterator.hasNext()) {
+                Question question = iterator.next();
+                if (accept.test(question)) {
+                    iterator.remove();
+                    pool.addedChanged = true;
+                    if (pool.index != null) {
+                        pool.index.remove(question);
+                    }
+                    taken.add(question);
+                } else {
+                    rejected++;
+                }
+            }
+        }
+
+        if (!taken.isEmpty()) {
+            persistAsync(key);
+        }
+        return taken;
+    }
+
+    /**
+     * Take accepted questions from a pool's store into taken. Candidates are
+     * picked under the pool's monitor, starting where the last take stopped
+     * so that questions one quiz rejected are not the first the next one
+     * reads; they are materialized and filtered outside it, and claimed only
+     * if no other take got them first.
+     *
+     * @return number of questions rejected
+     */
+    private static int takeFromStore(Pool pool, int count, Predicate<Question> accept, List<Question> taken) {
+        int rejected = 0;
+        int examined = 0;
+        while (taken.size() < count && rejected < MAX_REJECTS) {
+            MappedQuestionStore store;
+            int[] candidates = new int[count - taken.size()];
+            int found = 0;
+            synchronized (pool) {
+                store = pool.store;
+                if (store == null || pool.storeLive == 0 || examined >= store.size()) {
+                    break;
+                }
+                int id = pool.taken.nextClearBit(pool.cursor);
+                if (id >= store.size()) {
+                    id = pool.taken.nextClearBit(0); // Wrap around
+                }
+                while (found < candidates.length && id < store.size()) {
+                    candidates[found++] = id;
+                    id = pool.taken.nextClearBit(id + 1);
+                }
+                pool.cursor = id;
+            }
+            examined += found;
+
+            List<Question> accepted = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                Question question = store.get(candidates[i]);
+                if (accept.test(question)) {
+                    accepted.add(question);
+                } else {
+                    candidates[i] = -1;
+                    rejected++;
+                }
+            }
+
+            synchronized (pool) {
+                if (pool.store != store) {
+                    continue; // Rewritten meanwhile, so the ids are stale
+                }
+                int next = 0;
+                for (int i = 0; i < found; i++) {
+                    int id = candidates[i];
+                    if (id < 0) {
+                        continue;
+                    }
+                    Question question = accepted.get(next++);
+                    if (pool.taken.get(id)) {
+                        continue; // Another take claimed it first
+                    }
+                    pool.taken.set(id);
+                    pool.storeLive--;
+                    pool.takenChanged = true;
+                    if (pool.index != null) {
+                        pool.index.remove(question);
+                    }
+                    taken.add(question);
+                }
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Add freshly generated questions to the pool, skipping near-duplicates
+     * of questions already in it
+     *
+     * @return number of questions added
+     */
+    public int add(String domain, String difficulty, List<Question> questions) {
+        if (questions == null || questions.isEmpty()) {
+            return 0;
+        }
+
+        PoolKey key = new PoolKey(domain, difficulty);
+        Pool pool = poolFor(key);
+        int added = 0;
+        synchronized (pool) {
+            NearDuplicateIndex index = indexFor(pool);
+            for (Question question : questions) {
+                if (MappedQuestionStore.canStore(question) && index.add(question)) {
+                    pool.added.addLast(question);
+                    pool.addedChanged = true;
+                    added++;
+                }
+            }
+        }
+        if (added > 0) {
+            persistAsync(key);
+        }
+        return added;
+    }
+
+    /**
+     * Number of pooled questions for a domain and difficulty
+     */
+    public int size(String domain, String difficulty) {
+        Pool pool = poolFor(new PoolKey(domain, difficulty));
+        synchronized (pool) {
+            return pool.size();
+        }
+    }
+
+    /**
+     * Schedule a background top-up if the pool is below its low-water mark.
+     * At most one refill per key is in flight at a time.
+     */
+    public void requestRefill(String domain, String difficulty, QuestionSource source) {
+        if (source == null) {
+            return;
+        }
+
+        PoolKey key = new PoolKey(domain, difficulty);
+        if (size(domain, difficulty) > lowWaterMark || !refillsInFlight.add(key)) {
+            return;
+        }
+
+        refiller.execute(() -> {
+            try {
+                refill(key, source);
+            } finally {
+                refillsInFlight.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Fill the pool up to the target size in batches
+     */
+    private void refill(PoolKey key, QuestionSource source) {
+        int deficit = targetSize - size(key.domain, key.difficulty);
+
+        while (deficit > 0) {
+            int batch = Math.min(deficit, refillBatchSize);
+            List<Question> generated;
+            try {
+                generated = source.generate(key.domain, key.difficulty, batch);
+            } catch (Exception e) {
+                System.err.println("Pool refill failed for " + key + ": " + e.getMessage());
+                return;
+            }
+
+            if (generated == null || generated.isEmpty()) {
+                return;
+            }
+
+            if (add(key.domain, key.difficulty, generated) == 0) {
+                return; // Nothing new; try again on the next refill
+            }
+            deficit = targetSize - size(key.domain, key.difficulty);
+        }
+
+        System.out.println("Question pool for " + key + " refilled to " + size(key.domain, key.difficulty));
+    }
+
+    /**
+     * Get pool sizes keyed by "domain (difficulty)"
+     */
+    public Map<String, Integer> getPoolSizes() {
+        Map<String, Integer> sizes = new TreeMap<>();
+        for (Map.Entry<PoolKey, Pool> entry : pools.entrySet()) {
+            synchronized (entry.getValue()) {
+                sizes.put(entry.getKey().toString(), entry.getValue().size());
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Drop every pooled question, in memory and on disk
+     */
+    public void clear() {
+        for (Map.Entry<PoolKey, Pool> entry : pools.entrySet()) {
+            Pool pool = entry.getValue();
+            synchronized (pool) {
+                if (pool.store != null) {
+                    pool.taken.set(0, pool.store.size());
+                }
+                pool.storeLive = 0;
+                pool.added.clear();
+                pool.takenChanged = true;
+                pool.addedChanged = true;
+                pool.index = new NearDuplicateIndex();
+            }
+            persistAsync(entry.getKey());
+        }
+    }
+
+    private Pool poolFor(PoolKey key) {
+        return pools.computeIfAbsent(key, this::loadPool);
+    }
+
+    /**
+     * Open the newest store generation for a pool with its taken bitmap and
+     * added questions, or import a pool saved by an older version, or start
+     * empty. Files of other generations left behind (e.g. still mapped when
+     * they were replaced) are deleted.
+     */
+    @SuppressWarnings("unchecked")
+    private Pool loadPool(PoolKey key) {
+        Pool pool = new Pool();
+        for (File file : key.generations(directory)) {
+            try {
+                pool.store = MappedQuestionStore.open(file);
+                pool.storeFile = file;
+                pool.generation = key.generationOf(file);
+                pool.storeLive = pool.store.size();
+                break;
+            } catch (IOException e) {
+                System.err.println("Error loading question pool " + file + ": " + e.getMessage());
+            }
+        }
+        key.deleteOtherGenerations(directory, pool.generation);
+
+        if (pool.store != null) {
+            File takenFile = key.takenFile(directory, pool.generation);
+            try {
+                BitSet taken = readTaken(takenFile, pool.store.size());
+                if (taken != null) {
+                    pool.taken = taken;
+                    pool.storeLive = pool.store.size() - taken.cardinality();
+                }
+            } catch (IOException e) {
+                System.err.println("Error loading question pool " + takenFile + ": " + e.getMessage());
+            }
+        }
+        File addedFile = key.addedFile(directory, pool.generation);
+        if (addedFile.exists()) {
+            try (MappedQuestionStore added = MappedQuestionStore.open(addedFile)) {
+                for (int id = 0; id < added.size(); id++) {
+                    pool.added.add(added.get(id));
+                }
+            } catch (IOException e) {
+                System.err.println("Error loading question pool " + addedFile + ": " + e.getMessage());
+            }
+        }
+
+        File legacyFile = key.legacyFile(directory);
+        if (!legacyFile.exists()) {
+            return pool;
+        }
+        if (pool.store != null || addedFile.exists()) {
+            legacyFile.delete(); // Already imported
+            return pool;
+        }
+
+        try (ObjectInputStream ois = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(legacyFile)))) {
+            for (Question question : (List<Question>) ois.readObject()) {
+                if (MappedQuestionStore.canStore(question)) {
+                    pool.added.add(question);
+                    pool.addedChanged = true;
+                }
+            }
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("Error loading question pool " + legacyFile + ": " + e.getMessage());
+        }
+        return pool;
+    }
+
+    /**
+     * Near-duplicate index of a pool, built on first use so that opening a
+     * pool and taking from it never scans the store. Called holding the
+     * pool's monitor.
+     */
+    private static NearDuplicateIndex indexFor(Pool pool) {
+        if (pool.index == null) {
+            NearDuplicateIndex index = new NearDuplicateIndex();
+            if (pool.store != null) {
+                for (int id = pool.taken.nextClearBit(0); id < pool.store.size(); id = pool.taken.nextClearBit(id + 1)) {
+                    index.addDetached(pool.store.get(id));
+                }
+            }
+            for (Question question : pool.added) {
+                index.add(question);
+            }
+            pool.index = index;
+        }
+        return pool.index;
+    }
+
+    // Changes made while a write is queued are picked up by that write
+    private void persistAsync(PoolKey key) {
+        if (!writesPending.add(key)) {
+            return;
+        }
+        try {
+            writer.execute(() -> persist(key));
+        } catch (RejectedExecutionException e) {
+            persist(key);
+        }
+    }
+
+    /**
+     * Save a pool's changes: fold them into a new store generation once
+     * they are a large enough share of it, otherwise just rewrite the
+     * taken bitmap and added questions
+     */
+    private void persist(PoolKey key) {
+        writesPending.remove(key);
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            return;
+        }
+
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        boolean compact;
+        synchronized (pool) {
+            compact = pool.needsCompaction();
+        }
+        if (compact ? compact(key, pool) : writeSidecars(key, pool)) {
+            key.legacyFile(directory).delete();
+        }
+    }
+
+    /**
+     * Rewrite whichever of the taken bitmap and added questions changed.
+     * Both files are small next to the store: a bit per stored question,
+     * and fewer added questions than it takes to trigger a compaction.
+     */
+    private boolean writeSidecars(PoolKey key, Pool pool) {
+        BitSet taken = null;
+        List<Question> added = null;
+        int storeSize;
+        long generation;
+        synchronized (pool) {
+            storeSize = pool.store == null ? 0 : pool.store.size();
+            generation = pool.generation;
+            if (pool.takenChanged && pool.store != null) {
+                taken = (BitSet) pool.taken.clone();
+            }
+            if (pool.addedChanged) {
+                added = new ArrayList<>(pool.added);
+            }
+            pool.takenChanged = false;
+            pool.addedChanged = false;
+        }
+
+        File file = null;
+        try {
+            if (taken != null) {
+                file = key.takenFile(directory, generation);
+                writeTaken(file, taken, storeSize);
+            }
+            if (added != null) {
+                file = key.addedFile(directory, generation);
+                if (added.isEmpty()) {
+                    file.delete();
+                } else {
+                    MappedQuestionStore.write(file, added, question -> key.domain);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving question pool " + file + ": " + e.getMessage());
+            synchronized (pool) {
+                // Try again with the next change
+                pool.takenChanged |= taken != null;
+                pool.addedChanged |= added != null;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Write the pool's current questions to the next store generation and
+     * switch to it. The questions are streamed from the old store and the
+     * added list without holding the pool's monitor; questions taken or
+     * added meanwhile are carried over when switching. The near-duplicate
+     * index already describes exactly these questions, so it is kept.
+     */
+    private boolean compact(PoolKey key, Pool pool) {
+        MappedQuestionStore oldStore;
+        File oldFile;
+        BitSet takenBefore;
+        List<Question> addedBefore;
+        long generation;
+        synchronized (pool) {
+            oldStore = pool.store;
+            oldFile = pool.storeFile;
+            takenBefore = (BitSet) pool.taken.clone();
+            addedBefore = new ArrayList<>(pool.added);
+            generation = pool.generation + 1;
+        }
+
+        File storeFile = key.file(directory, generation);
+        int expected = (oldStore == null ? 0 : oldStore.size() - takenBefore.cardinality()) + addedBefore.size();
+        MappedQuestionStore newStore;
+        try {
+            MappedQuestionStore.write(storeFile, () -> new LiveQuestions(oldStore, takenBefore, addedBefore),
+                question -> key.domain);
+            newStore = MappedQuestionStore.open(storeFile);
+            if (newStore.size() != expected) {
+                newStore.close();
+                throw new IOException("wrote " + newStore.size() + " of " + expected + " questions");
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving question pool " + storeFile + ": " + e.getMessage());
+            storeFile.delete();
+            return false;
+        }
+
+        boolean changedSince;
+        synchronized (pool) {
+            // New ids: the old store's live questions in order, then addedBefore
+            BitSet taken = new BitSet();
+            int id = 0;
+            if (oldStore != null) {
+                for (int old = takenBefore.nextClearBit(0); old < oldStore.size(); old = takenBefore.nextClearBit(old + 1)) {
+                    if (pool.taken.get(old)) {
+                        taken.set(id);
+                    }
+                    id++;
+                }
+            }
+            Set<Question> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+            moved.addAll(addedBefore);
+            Set<Question> stillAdded = Collections.newSetFromMap(new IdentityHashMap<>());
+            stillAdded.addAll(pool.added);
+            for (Question question : addedBefore) {
+                if (!stillAdded.contains(question)) {
+                    taken.set(id);
+                } else if (pool.index != null) {
+                    pool.index.detach(question); // Now in the store
+                }
+                id++;
+            }
+            pool.added.removeIf(moved::contains);
+
+            pool.store = newStore;
+            pool.storeFile = storeFile;
+            pool.generation = generation;
+            pool.taken = taken;
+            pool.storeLive = newStore.size() - taken.cardinality();
+            pool.cursor = 0;
+            pool.takenChanged = !taken.isEmpty();
+            pool.addedChanged = !pool.added.isEmpty();
+            changedSince = pool.takenChanged || pool.addedChanged;
+        }
+
+        // The old generation's files go last, so a crash leaves a whole pool
+        key.takenFile(directory, generation - 1).delete();
+        key.addedFile(directory, generation - 1).delete();
+        if (oldStore != null) {
+            try {
+                oldStore.close();
+            } catch (IOException e) {
+                // Nothing to do; the file is removed below or on the next load
+            }
+            oldFile.delete();
+        }
+        if (changedSince) {
+            persistAsync(key);
+        }
+        return true;
+    }
+
+    /**
+     * Write a taken bitmap: the store size it belongs to, then its words
+     */
+    private static void writeTaken(File file, BitSet taken, int storeSize) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            long[] words = taken.toLongArray();
+            out.writeInt(storeSize);
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+        if (!tempFile.renameTo(file)) {
+            file.delete();
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+        }
+    }
+
+    /**
+     * Read a taken bitmap
+     *
+     * @return the bitmap, or null if there is none for a store of this size
+     */
+    private static BitSet readTaken(File file, int storeSize) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != storeSize) {
+                return null;
+            }
+            int length = in.readInt();
+            if (length < 0 || length > (storeSize + 63) / 64) {
+                throw new IOException("bad bitmap length " + length);
+            }
+            long[] words = new long[length];
+            for (int i = 0; i < length; i++) {
+                words[i] = in.readLong();
+            }
+            return BitSet.valueOf(words);
+        }
+    }
+
+    /**
+     * The questions of a pool snapshot in store order
+     */
+    private static final class LiveQuestions implements Iterator<Question> {
+        private final MappedQuestionStore store;
+        private final BitSet taken;
+        private final Iterator<Question> added;
+        private int nextId;
+
+        LiveQuestions(MappedQuestionStore store, BitSet taken, List<Question> added) {
+            this.store = store;
+            this.taken = taken;
+            this.added = added.iterator();
+            this.nextId = store == null ? 0 : taken.nextClearBit(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return (store != null && nextId < store.size()) || added.hasNext();
+        }
+
+        @Override
+        public Question next() {
+            if (store != null && nextId < store.size()) {
+                Question question = store.get(nextId);
+                nextId = taken.nextClearBit(nextId + 1);
+                return question;
+            }
+            return added.next();
+        }
+    }
+
+    /**
+     * Pool key for a (domain, difficulty) pair
+     */
+    private static final class PoolKey {
+        private final String domain;
+        private final String difficulty;
+
+        PoolKey(String domain, String difficulty) {
+            this.domain = domain;
+            this.difficulty = difficulty;
+        }
+
+        private String name() {
+            return (domain + "_" + difficulty).replaceAll("[\\\\/:*?\"<>|]", "_");
+        }
+
+        File file(File directory, long generation) {
+            return new File(directory, name() + "." + generation + ".qzs");
+        }
+
+        File takenFile(File directory, long generation) {
+            return new File(directory, name() + "." + generation + ".taken");
+        }
+
+        File addedFile(File directory, long generation) {
+            return new File(directory, name() + "." + generation + ".added");
+        }
+
+        /**
+         * Serialized list written by versions before the mapped store
+         */
+        File legacyFile(File directory) {
+            return new File(directory, name() + ".dat");
+        }
+
+        /**
+         * Store generations on disk, newest first
+         */
+        List<File> generations(File directory) {
+            String prefix = name() + ".";
+            File[] files = directory.listFiles((dir, file) -> file.startsWith(prefix) && file.endsWith(".qzs")
+                && file.substring(prefix.length(), file.length() - 4).matches("\\d+"));
+            List<File> generations = new ArrayList<>(files == null ? Collections.emptyList() : Arrays.asList(files));
+            generations.sort(Comparator.comparingLong(this::generationOf).reversed());
+            return generations;
+        }
+
+        /**
+         * Delete every file of this pool that belongs to another generation,
+         * and any temp file
+         */
+        void deleteOtherGenerations(File directory, long generation) {
+            String prefix = name() + ".";
+            String current = prefix + generation + ".";
+            File[] files = directory.listFiles((dir, file) -> file.startsWith(prefix)
+                && file.substring(prefix.length()).matches("\\d+\\..*")
+                && (!file.startsWith(current) || file.endsWith(".tmp")));
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        }
+
+        long generationOf(File file) {
+            String name = file.getName();
+            return Long.parseLong(name.substring(name().length() + 1, name.length() - 4));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PoolKey)) return false;
+            PoolKey other = (PoolKey) o;
+            return domain.equals(other.domain) && difficulty.equals(other.difficulty);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * domain.hashCode() + difficulty.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return domain + " (" + difficulty + ")";
+        }
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * Enum for different question types
+ */
+enum QuestionType {
+    MULTIPLE_CHOICE,
+    TRUE_FALSE,
+    FILL_IN_BLANK,
+    MATCHING
+}
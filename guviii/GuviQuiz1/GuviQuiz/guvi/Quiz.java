@@ -3,29 +3,31 @@ import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
 
 
-public class Quiz extends JFrame {
-    private UserProfile userProfile;
+/**
+ * Swing view over a QuizSession: shows its questions, forwards answers,
+ * runs the on-screen countdown and shows the results
+ */
+public class Quiz extends JFrame implements QuizSession.Listener {
     private String domain;
     private String difficulty;
     private QuestionBank questionBank;
-    private int questionCount;
     private int timePerQuestion;
     private boolean reviewAnswers;
     private boolean showExplanations;
     private boolean soundEffects;
     
-    private List<Question> questions;
-    private int currentQuestionIndex;
-    private int correctAnswers;
-    private long startTime;
-    private long questionStartTime;
-    private Timer questionTimer;
+    private final QuizSession session;
+    private final UserProfile userProfile;
+    private CountdownScheduler.Countdown questionCountdown;
     private int timeRemaining;
-    private int totalScore;
+    
+    // Reused for every tick so the countdown allocates nothing per second
+    private final Runnable timerRefresh = this::refreshTimer;
+    private final CountdownScheduler.Listener questionClock =
+        countdown -> SwingUtilities.invokeLater(timerRefresh);
     
    
     private JLabel questionNumberLabel;
@@ -36,6 +38,11 @@ public class Quiz extends JFrame {
     private JLabel scoreLabel;
     private JProgressBar progressBar;
     private JButton nextButton;
+    private JButton cancelLoadingButton;
+    
+    // Questions delivered so far; EDT only
+    private int questionsReceived;
+    private volatile boolean loadingCancelled;
     
     // Modern colors
     private static final Color PRIMARY_COLOR = new Color(41, 128, 185);
@@ -52,21 +59,16 @@ public class Quiz extends JFrame {
                QuestionBank questionBank, int questionCount, int timePerQuestion,
                boolean reviewAnswers, boolean showExplanations, boolean soundEffects) {
         
-        this.userProfile = userProfile;
         this.domain = domain;
         this.difficulty = difficulty;
         this.questionBank = questionBank;
-        this.questionCount = questionCount;
         this.timePerQuestion = timePerQuestion;
         this.reviewAnswers = reviewAnswers;
         this.showExplanations = showExplanations;
         this.soundEffects = soundEffects;
         
-        this.currentQuestionIndex = 0;
-        this.correctAnswers = 0;
-        this.totalScore = 0;
-        
-        this.questions = questionBank.getQuestionsForDomain(domain, difficulty, questionCount);
+        this.userProfile = userProfile;
+        this.session = new QuizSession(userProfile, domain, difficulty, questionCount, timePerQuestion);
         
         setTitle("Quiz - " + domain + " (" + difficulty + ")");
         setSize(900, 700);
@@ -81,6 +83,79 @@ public class Quiz extends JFrame {
         });
         
         initComponents();
+        session.setListener(this);
+        loadQuestions(questionCount);
+    }
+    
+    /**
+     * Stream questions in on a background thread; the quiz can start as
+     * soon as the first arrives. Nothing here runs on the EDT except the
+     * session calls, which are posted there so its events can update the UI.
+     */
+    private void loadQuestions(int questionCount) {
+        CompletableFuture
+            .supplyAsync(() -> questionBank.streamQuestionsForDomain(domain, difficulty, questionCount,
+                userProfile != null ? userProfile.getSeenQuestions() : null, this::questionArrived))
+            .thenCompose(loading -> loading)
+            .whenComplete((all, error) -> {
+                if (error != null) {
+                    System.err.println("Question loading failed: " + error.getMessage());
+                }
+                SwingUtilities.invokeLater(session::finishLoading);
+            });
+    }
+    
+    private void questionArrived(Question question) {
+        if (loadingCancelled) {
+            // Keep what was already paid for; the next quiz can use it
+            questionBank.getQuestionPool().add(domain, difficulty, List.of(question));
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            questionsReceived++;
+            session.addQuestion(question);
+            if (session.getState() == QuizSession.State.WAITING_FOR_QUESTION) {
+                showLoadingProgress();
+            }
+        });
+    }
+    
+    @Override
+    public void waitingForQuestion(int index) {
+        questionTextLabel.setText("<html><body style='width: 750px; padding: 10px;'>" + 
+                                 "Generating question " + (index + 1) + "...</body></html>");
+        for (JButton button : optionButtons) {
+            button.setVisible(false);
+        }
+        nextButton.setEnabled(false);
+        cancelLoadingButton.setVisible(true);
+        showLoadingProgress();
+    }
+    
+    private void showLoadingProgress() {
+        int questionCount = session.getQuestionCount();
+        progressBar.setIndeterminate(questionsReceived == 0);
+        progressBar.setMaximum(Math.max(1, questionCount));
+        progressBar.setValue(questionsReceived);
+        progressBar.setString("Generating questions: " + questionsReceived + " / " + questionCount);
+    }
+    
+    /**
+     * Give up while questions are still being generated. Questions that
+     * arrive afterwards go to the pool instead of being thrown away.
+     */
+    private void cancelLoading() {
+        loadingCancelled = true;
+        session.abandon();
+        stopQuestionTimer();
+        dispose();
+        new Login().setVisible(true);
+    }
+    
+    @Override
+    public void questionCountChanged(int questionCount) {
+        // Fewer questions than requested: the quiz was shortened
+        progressBar.setMaximum(Math.max(1, questionCount));
     }
     
     private void initComponents() {
@@ -109,7 +184,7 @@ public class Quiz extends JFrame {
         panel.setBackground(BACKGROUND_COLOR);
         
         // Progress bar
-        progressBar = new JProgressBar(0, questionCount);
+        progressBar = new JProgressBar(0, session.getQuestionCount());
         progressBar.setValue(1);
         progressBar.setStringPainted(true);
         progressBar.setForeground(PRIMARY_COLOR);
@@ -122,7 +197,7 @@ public class Quiz extends JFrame {
         JPanel statsPanel = new JPanel(new GridLayout(1, 3, 15, 0));
         statsPanel.setBackground(BACKGROUND_COLOR);
         
-        questionNumberLabel = createStatCard(" Question", "1 of " + questionCount, PRIMARY_COLOR);
+        questionNumberLabel = createStatCard(" Question", "1 of " + session.getQuestionCount(), PRIMARY_COLOR);
         scoreLabel = createStatCard(" Score", "0", SUCCESS_COLOR);
         timerLabel = createStatCard(" Time", timePerQuestion + "s", WARNING_COLOR);
         
@@ -249,6 +324,19 @@ public class Quiz extends JFrame {
         });
         
         nextButton.addActionListener(e -> nextQuestion());
+        
+        cancelLoadingButton = new JButton("Cancel");
+        cancelLoadingButton.setFont(new Font("Segoe UI", Font.BOLD, 15));
+        cancelLoadingButton.setBackground(ERROR_COLOR);
+        cancelLoadingButton.setForeground(Color.WHITE);
+        cancelLoadingButton.setFocusPainted(false);
+        cancelLoadingButton.setBorderPainted(false);
+        cancelLoadingButton.setPreferredSize(new Dimension(120, 45));
+        cancelLoadingButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        cancelLoadingButton.setVisible(false);
+        cancelLoadingButton.addActionListener(e -> cancelLoading());
+        
+        panel.add(cancelLoadingButton);
         panel.add(nextButton);
         
         return panel;
@@ -256,21 +344,24 @@ public class Quiz extends JFrame {
     
     public void startQuiz() {
         setVisible(true);
-        startTime = System.currentTimeMillis();
-        displayCurrentQuestion();
+        session.start();
     }
     
-    private void displayCurrentQuestion() {
-        Question currentQuestion = questions.get(currentQuestionIndex);
+    @Override
+    public void questionShown(int index, Question currentQuestion) {
+        int questionCount = session.getQuestionCount();
         
         // Update question number
         questionNumberLabel.setText("<html><center><b>Question</b><br><font size='5'>" + 
-                                    (currentQuestionIndex + 1) + " of " + questionCount + 
+                                    (index + 1) + " of " + questionCount + 
                                     "</font></center></html>");
         
         // Update progress bar
-        progressBar.setValue(currentQuestionIndex + 1);
-        progressBar.setString("Progress: " + (currentQuestionIndex + 1) + " / " + questionCount);
+        cancelLoadingButton.setVisible(false);
+        progressBar.setIndeterminate(false);
+        progressBar.setMaximum(Math.max(1, questionCount));
+        progressBar.setValue(index + 1);
+        progressBar.setString("Progress: " + (index + 1) + " / " + questionCount);
         
         // Update question text
         questionTextLabel.setText("<html><body style='width: 750px; padding: 10px;'>" + 
@@ -301,29 +392,38 @@ public class Quiz extends JFrame {
     }
     
     private void startQuestionTimer() {
-        if (questionTimer != null) {
-            questionTimer.cancel();
-        }
+        stopQuestionTimer();
         
         timeRemaining = timePerQuestion;
         updateTimerDisplay();
-        questionStartTime = System.currentTimeMillis();
         
-        questionTimer = new Timer();
-        questionTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                timeRemaining--;
-                SwingUtilities.invokeLater(() -> {
-                    updateTimerDisplay();
-                    
-                    if (timeRemaining <= 0) {
-                        cancel();
-                        SwingUtilities.invokeLater(() -> timeUp());
-                    }
-                });
-            }
-        }, 1000, 1000);
+        questionCountdown = CountdownScheduler.shared().start(timePerQuestion, questionClock);
+    }
+    
+    private void stopQuestionTimer() {
+        if (questionCountdown != null) {
+            CountdownScheduler.shared().cancel(questionCountdown);
+            questionCountdown = null;
+        }
+    }
+    
+    /**
+     * Show the current countdown's time on the EDT; ticks from a cancelled
+     * countdown that were already queued are ignored
+     */
+    private void refreshTimer() {
+        CountdownScheduler.Countdown countdown = questionCountdown;
+        if (countdown == null || countdown.isCancelled()) {
+            return;
+        }
+        
+        timeRemaining = countdown.getSecondsRemaining();
+        updateTimerDisplay();
+        
+        if (countdown.isExpired()) {
+            questionCountdown = null;
+            session.timeout();
+        }
     }
     
     private void updateTimerDisplay() {
@@ -345,7 +445,8 @@ public class Quiz extends JFrame {
         ));
     }
     
-    private void timeUp() {
+    @Override
+    public void timedOut(int index, Question currentQuestion) {
         for (JButton button : optionButtons) {
             if (button.isVisible()) {
                 button.setEnabled(false);
@@ -353,7 +454,6 @@ public class Quiz extends JFrame {
         }
         
         if (reviewAnswers) {
-            Question currentQuestion = questions.get(currentQuestionIndex);
             int correctIndex = currentQuestion.getCorrectOptionIndex();
             highlightAnswer(correctIndex, true);
         }
@@ -363,38 +463,24 @@ public class Quiz extends JFrame {
     }
     
     private void selectAnswer(int selectedIndex) {
-        questionTimer.cancel();
-        long timeTaken = System.currentTimeMillis() - questionStartTime;
-        
-        Question currentQuestion = questions.get(currentQuestionIndex);
-        boolean isCorrect = currentQuestion.isCorrect(selectedIndex);
-        
-        
+        if (session.getState() != QuizSession.State.ASKING) {
+            return;
+        }
+        stopQuestionTimer();
+        session.answer(selectedIndex);
+    }
+    
+    @Override
+    public void answered(int index, Question currentQuestion, int selectedIndex, boolean isCorrect, int points) {
         for (JButton button : optionButtons) {
             if (button.isVisible()) {
                 button.setEnabled(false);
             }
         }
         
-        // Calculate score
-        int questionScore = 0;
         if (isCorrect) {
-            correctAnswers++;
-            
-            switch (difficulty) {
-                case "Easy": questionScore = 10; break;
-                case "Medium": questionScore = 20; break;
-                case "Hard": questionScore = 30; break;
-                default: questionScore = 10;
-            }
-            
-            if (timeTaken < (timePerQuestion * 1000 / 2)) {
-                questionScore = (int)(questionScore * 1.5);
-            }
-            
-            totalScore += questionScore;
             scoreLabel.setText("<html><center><b>Score</b><br><font size='5'>" + 
-                              totalScore + "</font></center></html>");
+                              session.getTotalScore() + "</font></center></html>");
         }
         
         // Highlight selected answer
@@ -410,7 +496,8 @@ public class Quiz extends JFrame {
         
         // Show explanation if enabled
         if (showExplanations && !currentQuestion.getExplanation().isEmpty()) {
-            showExplanationDialog(currentQuestion.getExplanation(), isCorrect);
+            // Shown after this event so the modal dialog doesn't hold the session
+            SwingUtilities.invokeLater(() -> showExplanationDialog(currentQuestion.getExplanation(), isCorrect));
         } else {
             showNotification(isCorrect ? " Correct!" : " Incorrect", 
                            isCorrect ? "Great job!" : "Keep trying!", 
@@ -481,25 +568,14 @@ public class Quiz extends JFrame {
     }
     
     private void nextQuestion() {
-        currentQuestionIndex++;
-        
-        if (currentQuestionIndex < questionCount && currentQuestionIndex < questions.size()) {
-            displayCurrentQuestion();
-        } else {
-            finishQuiz();
-        }
+        session.next();
     }
     
-    private void finishQuiz() {
-        long totalTimeTaken = (System.currentTimeMillis() - startTime) / 1000;
-        
-        QuizResult result = new QuizResult(domain, difficulty, correctAnswers, 
-                                          questions.size(), totalTimeTaken);
-        
-        userProfile.addQuizResult(domain, result);
-        userProfile.saveProfile();
-        
-        showResultsDialog(result);
+    @Override
+    public void finished(QuizResult result) {
+        stopQuestionTimer();
+        // The session has recorded the result to the profile
+        SwingUtilities.invokeLater(() -> showResultsDialog(result));
     }
     
     private void showResultsDialog(QuizResult result) {
@@ -543,7 +619,7 @@ public class Quiz extends JFrame {
         statsPanel.setBackground(BACKGROUND_COLOR);
         statsPanel.setBorder(BorderFactory.createEmptyBorder(20, 0, 20, 0));
         
-        statsPanel.add(createResultCard(" Total Score", totalScore + " points", SUCCESS_COLOR));
+        statsPanel.add(createResultCard(" Total Score", session.getTotalScore() + " points", SUCCESS_COLOR));
         statsPanel.add(createResultCard("Correct Answers", 
             result.getCorrectAnswers() + " / " + result.getTotalQuestions(), PRIMARY_COLOR));
         statsPanel.add(createResultCard(" Percentage", 
@@ -642,6 +718,7 @@ public class Quiz extends JFrame {
         JTabbedPane tabbedPane = new JTabbedPane();
         tabbedPane.setFont(new Font("Segoe UI", Font.BOLD, 13));
         
+        List<Question> questions = session.getQuestions();
         for (int i = 0; i < questions.size(); i++) {
             Question q = questions.get(i);
             JPanel qPanel = createQuestionReviewPanel(q, i + 1);
@@ -736,6 +813,9 @@ public class Quiz extends JFrame {
             JOptionPane.WARNING_MESSAGE);
             
         if (result == JOptionPane.YES_OPTION) {
+            session.abandon();
+            loadingCancelled = true;
+            stopQuestionTimer();
             dispose();
             new Login().setVisible(true);
         }
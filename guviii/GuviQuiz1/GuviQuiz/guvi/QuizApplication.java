@@ -1,5 +1,6 @@
 import javax.swing.*;
 import java.awt.*;
+import java.util.Arrays;
 
 /**
  * Main application launcher with enhanced startup checks
@@ -8,6 +9,19 @@ import java.awt.*;
 public class QuizApplication {
     
     public static void main(String[] args) {
+        // Headless mode: serve quizzes over HTTP instead of opening the UI
+        if (args.length > 0 && args[0].equals("--server")) {
+            try {
+                QuizServer.main(Arrays.copyOfRange(args, 1, args.length));
+            } catch (Exception e) {
+                System.err.println("Failed to start quiz server: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        
+        Metrics.startPeriodicDump(new Config().getMetricsDumpIntervalSeconds());
+        
         // Set system look and feel
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
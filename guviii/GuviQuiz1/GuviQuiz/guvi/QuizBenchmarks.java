@@ -0,0 +1,353 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Micro-benchmarks for the application's hot paths.
+ * Runs warmup and measurement iterations for each benchmark and writes the
+ * results in JMH's JSON result format, so runs can be compared with the
+ * usual JMH tooling.
+ *
+ * Usage: java QuizBenchmarks [name-filter] [result-file]
+ */
+public class QuizBenchmarks {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 1_000_000_000L;
+    private static final String RESULTS_DIR = "benchmarks";
+    private static final String[] DOMAINS = {
+        "Java Programming", "Mathematics", "Physics", "History", "General Knowledge"
+    };
+    private static final String[] DIFFICULTIES = {"Easy", "Medium", "Hard"};
+
+    // Results are folded in here so the JIT cannot discard the work
+    private static volatile int sink;
+
+    /**
+     * A single benchmarked operation
+     */
+    interface Operation {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Measured score of one benchmark, in nanoseconds per operation
+     */
+    static class Result {
+        final String name;
+        final Map<String, String> params;
+        final double[] iterationScores;
+
+        Result(String name, Map<String, String> params, double[] iterationScores) {
+            this.name = name;
+            this.params = params;
+            this.iterationScores = iterationScores;
+        }
+
+        double mean() {
+            double sum = 0;
+            for (double score : iterationScores) sum += score;
+            return sum / iterationScores.length;
+        }
+
+        double error() {
+            if (iterationScores.length < 2) return 0;
+            double mean = mean();
+            double squares = 0;
+            for (double score : iterationScores) squares += (score - mean) * (score - mean);
+            return Math.sqrt(squares / (iterationScores.length - 1));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String filter = args.length > 0 ? args[0] : "";
+        String resultFile = args.length > 1 ? args[1]
+            : RESULTS_DIR + "/results-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json";
+
+        System.out.println("=".repeat(70));
+        System.out.println("    QUIZ APPLICATION BENCHMARKS");
+        System.out.println("=".repeat(70));
+
+        List<Result> results = new ArrayList<>();
+        GeminiQuestionGenerator generator = new GeminiQuestionGenerator("benchmark");
+
+        // Parsing recorded-shape Gemini payloads
+        for (int questions : new int[]{5, 50, 500}) {
+            String payload = buildGeminiPayload(questions);
+            Map<String, String> params = params("questions", questions);
+
+            run(results, filter, "parseGeminiResponse", params,
+                () -> generator.parseGeminiResponse(payload, "Medium"));
+            run(results, filter, "jsonReaderCandidateText", params,
+                () -> QuestionBinder.readCandidateText(new JsonReader(payload)));
+        }
+
+        // Profile persistence and statistics, in a scratch directory so
+        // real profiles and their journals are never touched. Each benchmark
+        // gets its own freshly built profile (and files), so one that adds
+        // results cannot inflate the history the next one measures.
+        File profilesDir = Files.createTempDirectory("quiz-bench-profiles").toFile();
+        File previousProfilesDir = UserProfile.getProfilesDirectory();
+        UserProfile.setProfilesDirectory(profilesDir);
+        try {
+            for (int history : new int[]{10, 1_000, 100_000}) {
+                Map<String, String> params = params("history", history);
+
+                UserProfile saved = buildProfile("__bench_save_" + history, history);
+                run(results, filter, "saveProfile", params, () -> {
+                    saved.saveProfile();
+                    return saved;
+                });
+                run(results, filter, "loadProfile", params,
+                    () -> UserProfile.loadProfile(saved.getUsername()));
+
+                UserProfile recorded = buildProfile("__bench_record_" + history, history);
+                run(results, filter, "recordQuizResult", params, () -> {
+                    recorded.recordQuizResult("Physics", new QuizResult("Physics", "Medium", 7, 10, 120));
+                    return recorded;
+                });
+
+                UserProfile averaged = buildProfile("__bench_average_" + history, history);
+                run(results, filter, "getAverageScores", params, averaged::getAverageScores);
+
+                UserProfile achieved = buildProfile("__bench_achieve_" + history, history);
+                QuizResult perfect = new QuizResult("Physics", "Medium", 10, 10, 60);
+                run(results, filter, "achievementEngine", params, () -> {
+                    achieved.getAchievements().onResult("Physics", perfect);
+                    return achieved;
+                });
+            }
+        } finally {
+            UserProfile.setProfilesDirectory(previousProfilesDir);
+            File[] scratch = profilesDir.listFiles();
+            if (scratch != null) {
+                for (File file : scratch) {
+                    file.delete();
+                }
+            }
+            profilesDir.delete();
+        }
+
+        // Question countdowns on the shared timing wheel
+        for (int live : new int[]{1_000, 100_000}) {
+            CountdownScheduler scheduler = new CountdownScheduler();
+            CountdownScheduler.Listener idle = countdown -> { };
+            for (int i = 0; i < live; i++) {
+                scheduler.start(300, idle);
+            }
+
+            run(results, filter, "countdownStartCancel", params("live", live), () -> {
+                CountdownScheduler.Countdown countdown = scheduler.start(30, idle);
+                scheduler.cancel(countdown);
+                return countdown;
+            });
+        }
+
+        // Near-duplicate checks against a large question index
+        for (int indexed : new int[]{1_000, 100_000}) {
+            Random random = new Random(indexed);
+            NearDuplicateIndex index = new NearDuplicateIndex();
+            for (int i = 0; i < indexed; i++) {
+                index.add(new Question(randomWords(random, 10) + "?", Arrays.asList(randomWords(random, 2), "b", "c", "d"),
+                    0, "Medium", QuestionType.MULTIPLE_CHOICE, ""));
+            }
+            Question probe = new Question(randomWords(random, 10) + "?", Arrays.asList("a", "b", "c", "d"),
+                0, "Medium", QuestionType.MULTIPLE_CHOICE, "");
+
+            run(results, filter, "nearDuplicateCheck", params("indexed", indexed),
+                () -> index.containsSimilar(probe));
+        }
+
+        // Opening and reading a memory-mapped question store
+        new File(RESULTS_DIR).mkdirs();
+        for (int stored : new int[]{1_000, 1_000_000}) {
+            Random random = new Random(stored);
+            List<Question> questions = new ArrayList<>(stored);
+            for (int i = 0; i < stored; i++) {
+                questions.add(new Question(randomWords(random, 10) + "?", Arrays.asList(randomWords(random, 2), "b", "c", "d"),
+                    0, DIFFICULTIES[i % DIFFICULTIES.length], QuestionType.MULTIPLE_CHOICE, ""));
+            }
+            File storeFile = new File(RESULTS_DIR, "__bench_" + stored + ".qzs");
+            MappedQuestionStore.write(storeFile, questions, question -> "Physics");
+            questions = null;
+            Map<String, String> params = params("stored", stored);
+
+            run(results, filter, "mappedStoreOpen", params, () -> {
+                try (MappedQuestionStore store = MappedQuestionStore.open(storeFile)) {
+                    return store.size();
+                }
+            });
+            try (MappedQuestionStore store = MappedQuestionStore.open(storeFile)) {
+                run(results, filter, "mappedStoreGet", params,
+                    () -> store.get(random.nextInt(stored)));
+            }
+            storeFile.delete();
+        }
+
+        // Cost a hot path pays for each latency it records
+        Metrics.Histogram histogram = Metrics.latency("bench_record_seconds", "Benchmark histogram");
+        long recordStart = System.nanoTime();
+        run(results, filter, "histogramRecord", Collections.emptyMap(), () -> {
+            histogram.recordSince(recordStart);
+            return histogram;
+        });
+
+        writeResults(results, resultFile);
+        System.out.println("\nResults written to " + resultFile);
+    }
+
+    /**
+     * Warm up and measure one benchmark, printing a summary line
+     */
+    private static void run(List<Result> results, String filter, String name,
+                            Map<String, String> params, Operation operation) throws Exception {
+        String label = name + params;
+        if (!label.contains(filter)) {
+            return;
+        }
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            measureIteration(operation);
+        }
+
+        double[] scores = new double[MEASUREMENT_ITERATIONS];
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            scores[i] = measureIteration(operation);
+        }
+
+        Result result = new Result(name, params, scores);
+        results.add(result);
+        System.out.printf("%-45s %14.1f ± %10.1f ns/op%n", label, result.mean(), result.error());
+    }
+
+    /**
+     * Run the operation repeatedly for one iteration and return ns/op
+     */
+    private static double measureIteration(Operation operation) throws Exception {
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            Object value = operation.run();
+            sink += value == null ? 0 : System.identityHashCode(value);
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        return (double) elapsed / operations;
+    }
+
+    /**
+     * Build a generateContent response holding the given number of questions,
+     * shaped like the payloads Gemini actually returns
+     */
+    static String buildGeminiPayload(int questionCount) {
+        StringBuilder model = new StringBuilder("```json\n[\n");
+        Random random = new Random(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            if (i > 0) model.append(",\n");
+            model.append("  {\n")
+                 .append("    \"question\": \"Question ").append(i)
+                 .append(": which statement about \\\"").append(randomWords(random, 8))
+                 .append("\\\" is correct?\",\n")
+                 .append("    \"options\": [\"").append(randomWords(random, 3))
+                 .append("\", \"Second option\", \"Third option\", \"Fourth option\"],\n")
+                 .append("    \"correctIndex\": ").append(random.nextInt(4)).append(",\n")
+                 .append("    \"explanation\": \"Because the first option follows from the definition, ")
+                 .append("while the others describe related but different ideas.\"\n")
+                 .append("  }");
+        }
+        model.append("\n]\n```");
+
+        return "{\n  \"candidates\": [\n    {\n      \"content\": {\n        \"parts\": [\n          {\n"
+            + "            \"text\": " + JsonReader.quote(model.toString()) + "\n"
+            + "          }\n        ],\n        \"role\": \"model\"\n      },\n"
+            + "      \"finishReason\": \"STOP\",\n      \"index\": 0\n    }\n  ],\n"
+            + "  \"usageMetadata\": {\n    \"promptTokenCount\": 120,\n    \"candidatesTokenCount\": "
+            + (questionCount * 60) + "\n  },\n  \"modelVersion\": \"gemini-2.5-flash\"\n}";
+    }
+
+    /**
+     * Random made-up words, so synthetic questions are not near-duplicates
+     * of each other
+     */
+    private static String randomWords(Random random, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) words.append(' ');
+            int length = 3 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                words.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return words.toString();
+    }
+
+    /**
+     * Build a profile with a synthetic quiz history
+     */
+    static UserProfile buildProfile(String username, int history) {
+        UserProfile profile = new UserProfile(username);
+        Random random = new Random(history);
+        for (int i = 0; i < history; i++) {
+            String domain = DOMAINS[random.nextInt(DOMAINS.length)];
+            int total = 10;
+            profile.addQuizResult(domain, new QuizResult(
+                domain, DIFFICULTIES[random.nextInt(DIFFICULTIES.length)],
+                random.nextInt(total + 1), total, 60 + random.nextInt(240)));
+        }
+        return profile;
+    }
+
+    private static Map<String, String> params(String name, int value) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put(name, String.valueOf(value));
+        return params;
+    }
+
+    /**
+     * Write results in JMH's JSON result format
+     */
+    private static void writeResults(List<Result> results, String resultFile) throws IOException {
+        File file = new File(resultFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append("  {\n")
+                .append("    \"jmhVersion\": \"none\",\n")
+                .append("    \"benchmark\": ").append(JsonReader.quote("QuizBenchmarks." + result.name)).append(",\n")
+                .append("    \"mode\": \"avgt\",\n")
+                .append("    \"threads\": 1,\n")
+                .append("    \"forks\": 1,\n")
+                .append("    \"warmupIterations\": ").append(WARMUP_ITERATIONS).append(",\n")
+                .append("    \"measurementIterations\": ").append(MEASUREMENT_ITERATIONS).append(",\n")
+                .append("    \"params\": {");
+            int p = 0;
+            for (Map.Entry<String, String> param : result.params.entrySet()) {
+                if (p++ > 0) json.append(", ");
+                json.append(JsonReader.quote(param.getKey())).append(": ").append(JsonReader.quote(param.getValue()));
+            }
+            json.append("},\n")
+                .append("    \"primaryMetric\": {\n")
+                .append("      \"score\": ").append(result.mean()).append(",\n")
+                .append("      \"scoreError\": ").append(result.error()).append(",\n")
+                .append("      \"scoreUnit\": \"ns/op\",\n")
+                .append("      \"rawData\": [[");
+            for (int s = 0; s < result.iterationScores.length; s++) {
+                if (s > 0) json.append(", ");
+                json.append(result.iterationScores[s]);
+            }
+            json.append("]]\n    }\n  }").append(i < results.size() - 1 ? "," : "").append("\n");
+        }
+        json.append("]\n");
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+}
@@ -23,6 +23,19 @@ public class QuizResult implements Serializable {
         this.completionDate = LocalDateTime.now();
     }
     
+    /**
+     * Recreate a stored result with its original completion time
+     */
+    QuizResult(String domain, String difficulty, int correctAnswers,
+               int totalQuestions, long timeTakenSeconds, LocalDateTime completionDate) {
+        this.domain = domain;
+        this.difficulty = difficulty;
+        this.correctAnswers = correctAnswers;
+        this.totalQuestions = totalQuestions;
+        this.timeTakenSeconds = timeTakenSeconds;
+        this.completionDate = completionDate;
+    }
+    
     public double getPercentageScore() {
         return (double) correctAnswers / totalQuestions * 100;
     }
@@ -0,0 +1,659 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Serves quizzes over HTTP so many clients can share one QuestionBank.
+ * Each request runs on its own virtual thread where the JVM supports them
+ * (Java 21+), so blocking Gemini and profile I/O does not tie up platform
+ * threads; older JVMs fall back to a cached thread pool.
+ *
+ * Endpoints (JSON in, JSON out):
+ *   GET  /api/domains                      available domains
+ *   POST /api/login                        {username} -> {token, profile summary}
+ *   POST /api/quiz/start                   {token, domain, difficulty, questions?, timePerQuestion?}
+ *   GET  /api/quiz/{id}/question[?wait=1]  current question; wait=1 long-polls while it is generated
+ *   POST /api/quiz/{id}/answer             {answer} -> correctness, points, explanation
+ *   POST /api/quiz/{id}/abandon            give up the quiz, freeing its slot
+ *   GET  /api/quiz/{id}/results            final result once the quiz is finished
+ *   GET  /metrics                          Prometheus text metrics
+ *
+ * The quiz endpoints need the login token as "Authorization: Bearer <token>",
+ * and only the user who started a quiz can see or play it. Each user may
+ * have MAX_RUNNING_SESSIONS unfinished quizzes at once.
+ *
+ * Question deadlines are checked whenever the session is touched, so an
+ * unanswered question times out without a timer thread per session.
+ */
+public class QuizServer {
+    private static final long SESSION_IDLE_MILLIS = 30 * 60 * 1000L;
+    private static final long LONG_POLL_MILLIS = 10_000L;
+    private static final int MAX_RUNNING_SESSIONS = 3;
+    private static final Set<String> DIFFICULTIES = new HashSet<>(Arrays.asList("Easy", "Medium", "Hard"));
+    private static final Metrics.Histogram REQUEST_LATENCY = Metrics.latency("quiz_server_request_seconds",
+        "Time to handle a quiz API request, including long polls");
+
+    private final QuestionBank questionBank;
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final ScheduledExecutorService sweeper;
+
+    private final Map<String, ServerUser> usersByName = new ConcurrentHashMap<>();
+    private final Map<String, ServerUser> usersByToken = new ConcurrentHashMap<>();
+    private final Map<String, ServerSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * A logged-in user; profile writes are serialized per user. A user is
+     * only evicted from the cache once idle with no sessions left, so one
+     * profile is never loaded twice while a quiz still holds it.
+     */
+    private static class ServerUser {
+        final UserProfile profile;
+        final ReentrantLock lock = new ReentrantLock();
+        final Set<ServerSession> sessions = ConcurrentHashMap.newKeySet();
+        volatile long lastAccess = System.currentTimeMillis();
+        private boolean evicted;
+
+        ServerUser(UserProfile profile) {
+            this.profile = profile;
+        }
+
+        /**
+         * Note activity
+         *
+         * @return false if the user was evicted and must log in again
+         */
+        boolean touch() {
+            lock.lock();
+            try {
+                if (!evicted) {
+                    lastAccess = System.currentTimeMillis();
+                }
+                return !evicted;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean evictIfIdle(long cutoff) {
+            lock.lock();
+            try {
+                if (lastAccess < cutoff && sessions.isEmpty()) {
+                    evicted = true;
+                }
+                return evicted;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * A running quiz plus the server-side state around it.
+     * Client actions on one session are serialized by the lock, which is
+     * also the QuizSession's own lock, so the loader thread and request
+     * handlers never take two locks in opposite orders. It is a
+     * ReentrantLock rather than a monitor so waiting virtual threads unmount.
+     */
+    private static class ServerSession implements QuizSession.Listener {
+        final String id;
+        final ServerUser user;
+        final QuizSession session;
+        final ReentrantLock lock;
+        final Condition changed;
+        volatile long deadline;
+        volatile long lastAccess = System.currentTimeMillis();
+        volatile boolean over;
+        boolean recorded;
+
+        ServerSession(String id, ServerUser user, QuizSession session, ReentrantLock lock) {
+            this.id = id;
+            this.user = user;
+            this.session = session;
+            this.lock = lock;
+            this.changed = lock.newCondition();
+        }
+
+        @Override
+        public void questionShown(int index, Question question) {
+            deadline = System.currentTimeMillis() + session.getTimePerQuestion() * 1000L;
+            signal();
+        }
+
+        @Override
+        public void questionCountChanged(int questionCount) {
+            signal();
+        }
+
+        @Override
+        public void finished(QuizResult result) {
+            over = true;
+            signal();
+        }
+
+        private void signal() {
+            lock.lock();
+            try {
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public QuizServer(int port, QuestionBank questionBank) throws IOException {
+        this.questionBank = questionBank;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.requestExecutor = newRequestExecutor();
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "quiz-server-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+
+        server.createContext("/api/", this::handle);
+        server.createContext("/metrics", this::handleMetrics);
+        server.setExecutor(requestExecutor);
+    }
+
+    /**
+     * One virtual thread per request on Java 21+, otherwise a cached pool
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads need Java 21+; using a cached thread pool");
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "quiz-server-request");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    public void start() {
+        server.start();
+        sweeper.scheduleWithFixedDelay(this::sweepIdleSessions, 1, 1, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        server.stop(0);
+        sweeper.shutdownNow();
+        requestExecutor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    // ---------------------------------------------------------------- routing
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long started = System.nanoTime();
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+
+            if (path.length == 2 && path[1].equals("domains") && method.equals("GET")) {
+                handleDomains(exchange);
+            } else if (path.length == 2 && path[1].equals("login") && method.equals("POST")) {
+                handleLogin(exchange);
+            } else if (path.length == 3 && path[1].equals("quiz") && path[2].equals("start") && method.equals("POST")) {
+                handleStart(exchange);
+            } else if (path.length == 4 && path[1].equals("quiz")) {
+                ServerUser user = usersByToken.get(bearerToken(exchange));
+                if (user == null) {
+                    sendError(exchange, 401, "Log in first");
+                    return;
+                }
+                // Someone else's session looks the same as a missing one
+                ServerSession serverSession = sessions.get(path[2]);
+                if (serverSession == null || serverSession.user != user) {
+                    sendError(exchange, 404, "Unknown quiz session");
+                    return;
+                }
+                serverSession.lastAccess = System.currentTimeMillis();
+                user.touch();
+
+                if (path[3].equals("question") && method.equals("GET")) {
+                    handleQuestion(exchange, serverSession);
+                } else if (path[3].equals("answer") && method.equals("POST")) {
+                    handleAnswer(exchange, serverSession);
+                } else if (path[3].equals("abandon") && method.equals("POST")) {
+                    handleAbandon(exchange, serverSession);
+                } else if (path[3].equals("results") && method.equals("GET")) {
+                    handleResults(exchange, serverSession);
+                } else {
+                    sendError(exchange, 404, "Not found");
+                }
+            } else {
+                sendError(exchange, 404, "Not found");
+            }
+        } catch (BadRequestException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Quiz server error: " + e.getMessage());
+            sendError(exchange, 500, "Internal server error");
+        } finally {
+            exchange.close();
+            REQUEST_LATENCY.recordSince(started);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            byte[] bytes = Metrics.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleDomains(HttpExchange exchange) throws IOException {
+        StringBuilder json = new StringBuilder("{\"domains\": [");
+        List<String> domains = questionBank.getAvailableDomains();
+        for (int i = 0; i < domains.size(); i++) {
+            if (i > 0) json.append(", ");
+            json.append(JsonReader.quote(domains.get(i)));
+        }
+        json.append("], \"difficulties\": [\"Easy\", \"Medium\", \"Hard\"]}");
+        sendJson(exchange, 200, json.toString());
+    }
+
+    private void handleLogin(HttpExchange exchange) throws IOException {
+        Map<String, String> body = readJsonObject(exchange);
+        String username = body.getOrDefault("username", "").trim();
+        if (username.isEmpty() || username.length() > 50 || !username.matches("[^\\\\/:*?\"<>|.]+")) {
+            throw new BadRequestException("Username must be 1-50 characters without \\ / : * ? \" < > | .");
+        }
+
+        ServerUser user;
+        do {
+            user = usersByName.get(username);
+            if (user == null) {
+                // Load outside the map so file I/O doesn't hold a map bin lock
+                ServerUser loaded = new ServerUser(UserProfile.loadProfile(username));
+                user = usersByName.putIfAbsent(username, loaded);
+                if (user == null) {
+                    user = loaded;
+                }
+            }
+        } while (!user.touch()); // Evicted between the lookup and now
+
+        String token = UUID.randomUUID().toString();
+        usersByToken.put(token, user);
+
+        sendJson(exchange, 200, "{\"token\": " + JsonReader.quote(token) + ", \"profile\": " + profileJson(user) + "}");
+    }
+
+    private void handleStart(HttpExchange exchange) throws IOException {
+        Map<String, String> body = readJsonObject(exchange);
+        ServerUser user = usersByToken.get(body.getOrDefault("token", ""));
+        if (user == null || !user.touch()) {
+            sendError(exchange, 401, "Log in first");
+            return;
+        }
+
+        String domain = body.getOrDefault("domain", "");
+        String difficulty = body.getOrDefault("difficulty", "Medium");
+        if (!questionBank.getAvailableDomains().contains(domain)) {
+            throw new BadRequestException("Unknown domain: " + domain);
+        }
+        if (!DIFFICULTIES.contains(difficulty)) {
+            throw new BadRequestException("Difficulty must be Easy, Medium or Hard");
+        }
+        int questionCount = intParam(body, "questions", 10, 1, 50);
+        int timePerQuestion = intParam(body, "timePerQuestion", 30, 5, 300);
+
+        // The server records results itself, under the user's lock
+        ReentrantLock lock = new ReentrantLock();
+        QuizSession session = new QuizSession(null, domain, difficulty, questionCount, timePerQuestion, lock);
+        ServerSession serverSession = new ServerSession(UUID.randomUUID().toString(), user, session, lock);
+        session.setListener(serverSession);
+
+        // Each start can spend Gemini quota, so cap the quizzes a user has running
+        user.lock.lock();
+        try {
+            long running = user.sessions.stream().filter(s -> !s.over).count();
+            if (running >= MAX_RUNNING_SESSIONS) {
+                sendError(exchange, 429, "Finish or abandon a running quiz first (at most "
+                    + MAX_RUNNING_SESSIONS + " at once)");
+                return;
+            }
+            user.sessions.add(serverSession);
+        } finally {
+            user.lock.unlock();
+        }
+        sessions.put(serverSession.id, serverSession);
+
+        session.start();
+        questionBank.streamQuestionsForDomain(domain, difficulty, questionCount,
+                user.profile.getSeenQuestions(), session::addQuestion)
+            .whenComplete((questions, error) -> session.finishLoading());
+
+        sendJson(exchange, 200, "{\"sessionId\": " + JsonReader.quote(serverSession.id)
+            + ", \"domain\": " + JsonReader.quote(domain) + ", \"difficulty\": " + JsonReader.quote(difficulty)
+            + ", \"questionCount\": " + questionCount + ", \"timePerQuestion\": " + timePerQuestion + "}");
+    }
+
+    private void handleQuestion(HttpExchange exchange, ServerSession serverSession) throws IOException {
+        boolean wait = queryParams(exchange.getRequestURI()).containsKey("wait");
+
+        serverSession.lock.lock();
+        try {
+            expireIfDue(serverSession);
+
+            // Long-poll while the question is still being generated
+            long waitUntil = System.currentTimeMillis() + LONG_POLL_MILLIS;
+            while (wait && serverSession.session.getState() == QuizSession.State.WAITING_FOR_QUESTION) {
+                long remaining = waitUntil - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    serverSession.changed.await(remaining, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            sendJson(exchange, 200, questionJson(serverSession));
+        } finally {
+            serverSession.lock.unlock();
+        }
+    }
+
+    private void handleAnswer(HttpExchange exchange, ServerSession serverSession) throws IOException {
+        Map<String, String> body = readJsonObject(exchange);
+        int selected = intParam(body, "answer", -1, -1, 25);
+
+        String response;
+        serverSession.lock.lock();
+        try {
+            if (expireIfDue(serverSession)) {
+                sendError(exchange, 409, "Time ran out for that question");
+                return;
+            }
+
+            QuizSession session = serverSession.session;
+            if (session.getState() != QuizSession.State.ASKING) {
+                sendError(exchange, 409, "No question is waiting for an answer (state " + session.getState() + ")");
+                return;
+            }
+
+            Question question = session.getCurrentQuestion();
+            int points = session.answer(selected);
+            session.next();
+            recordIfFinished(serverSession);
+
+            response = "{\"correct\": " + question.isCorrect(selected)
+                + ", \"points\": " + points
+                + ", \"correctIndex\": " + question.getCorrectOptionIndex()
+                + ", \"explanation\": "
+                + JsonReader.quote(question.getExplanation() == null ? "" : question.getExplanation())
+                + ", \"totalScore\": " + session.getTotalScore()
+                + ", \"state\": " + JsonReader.quote(session.getState().name()) + "}";
+        } finally {
+            serverSession.lock.unlock();
+        }
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleAbandon(HttpExchange exchange, ServerSession serverSession) throws IOException {
+        String response;
+        serverSession.lock.lock();
+        try {
+            expireIfDue(serverSession);
+            QuizSession session = serverSession.session;
+            session.abandon();
+            if (session.getState() == QuizSession.State.ABANDONED) {
+                serverSession.over = true;
+            }
+            response = "{\"state\": " + JsonReader.quote(session.getState().name()) + "}";
+        } finally {
+            serverSession.lock.unlock();
+        }
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleResults(HttpExchange exchange, ServerSession serverSession) throws IOException {
+        String response;
+        serverSession.lock.lock();
+        try {
+            expireIfDue(serverSession);
+            QuizResult result = serverSession.session.getResult();
+            if (result == null) {
+                sendError(exchange, 409, "Quiz not finished (state " + serverSession.session.getState() + ")");
+                return;
+            }
+
+            response = "{\"domain\": " + JsonReader.quote(result.getDomain())
+                + ", \"difficulty\": " + JsonReader.quote(result.getDifficulty())
+                + ", \"correctAnswers\": " + result.getCorrectAnswers()
+                + ", \"totalQuestions\": " + result.getTotalQuestions()
+                + ", \"percentage\": " + (result.getTotalQuestions() == 0 ? 0 : result.getPercentageScore())
+                + ", \"totalScore\": " + serverSession.session.getTotalScore()
+                + ", \"timeTakenSeconds\": " + result.getTimeTakenSeconds()
+                + ", \"profile\": " + profileJson(serverSession.user) + "}";
+        } finally {
+            serverSession.lock.unlock();
+        }
+        sendJson(exchange, 200, response);
+    }
+
+    // ---------------------------------------------------------------- session helpers
+
+    /**
+     * Time out the current question if its deadline has passed and move on.
+     * Must be called with the session lock held.
+     *
+     * @return true if a question was timed out
+     */
+    private boolean expireIfDue(ServerSession serverSession) {
+        QuizSession session = serverSession.session;
+        if (session.getState() != QuizSession.State.ASKING || System.currentTimeMillis() < serverSession.deadline) {
+            return false;
+        }
+        session.timeout();
+        session.next();
+        recordIfFinished(serverSession);
+        return true;
+    }
+
+    private void recordIfFinished(ServerSession serverSession) {
+        QuizResult result = serverSession.session.getResult();
+        if (result == null || serverSession.recorded) {
+            return;
+        }
+        serverSession.recorded = true;
+
+        ServerUser user = serverSession.user;
+        user.lock.lock();
+        try {
+            user.profile.recordQuizResult(result.getDomain(), result);
+            user.profile.markQuestionsSeen(serverSession.session.getQuestions());
+        } finally {
+            user.lock.unlock();
+        }
+    }
+
+    private void sweepIdleSessions() {
+        long cutoff = System.currentTimeMillis() - SESSION_IDLE_MILLIS;
+        sessions.values().removeIf(s -> {
+            if (s.lastAccess < cutoff) {
+                s.session.abandon();
+                s.user.sessions.remove(s);
+                return true;
+            }
+            return false;
+        });
+        // Idle users with no sessions left drop out of the cache, and their
+        // tokens with them; their next login reloads the profile
+        usersByName.values().removeIf(user -> user.evictIfIdle(cutoff));
+        usersByToken.values().removeIf(user -> user.evictIfIdle(cutoff));
+    }
+
+    // ---------------------------------------------------------------- JSON
+
+    private String questionJson(ServerSession serverSession) {
+        QuizSession session = serverSession.session;
+        QuizSession.State state = session.getState();
+        StringBuilder json = new StringBuilder("{\"state\": ").append(JsonReader.quote(state.name()))
+            .append(", \"index\": ").append(session.getCurrentQuestionIndex())
+            .append(", \"questionCount\": ").append(session.getQuestionCount());
+
+        if (state == QuizSession.State.ASKING) {
+            Question question = session.getCurrentQuestion();
+            long remaining = Math.max(0, serverSession.deadline - System.currentTimeMillis());
+            json.append(", \"timeRemaining\": ").append((remaining + 999) / 1000)
+                .append(", \"question\": {\"text\": ").append(JsonReader.quote(question.getText()))
+                .append(", \"options\": [");
+            List<String> options = question.getOptions();
+            for (int i = 0; i < options.size(); i++) {
+                if (i > 0) json.append(", ");
+                json.append(JsonReader.quote(options.get(i)));
+            }
+            json.append("]}");
+        }
+        return json.append("}").toString();
+    }
+
+    private static String profileJson(ServerUser user) {
+        user.lock.lock();
+        try {
+            UserProfile profile = user.profile;
+            StringBuilder json = new StringBuilder("{\"username\": ").append(JsonReader.quote(profile.getUsername()))
+                .append(", \"totalQuizzes\": ").append(profile.getTotalQuizzesTaken())
+                .append(", \"points\": ").append(profile.getAchievementPoints())
+                .append(", \"badges\": [");
+            int i = 0;
+            for (String badge : profile.getEarnedBadges()) {
+                if (i++ > 0) json.append(", ");
+                json.append(JsonReader.quote(badge));
+            }
+            return json.append("]}").toString();
+        } finally {
+            user.lock.unlock();
+        }
+    }
+
+    /**
+     * Read a flat JSON object; nested values are skipped
+     */
+    private static Map<String, String> readJsonObject(HttpExchange exchange) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        try (JsonReader reader = new JsonReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            if (reader.peek() == JsonReader.Token.END_DOCUMENT) {
+                return values;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                JsonReader.Token token = reader.peek();
+                if (token == JsonReader.Token.STRING || token == JsonReader.Token.NUMBER
+                        || token == JsonReader.Token.BOOLEAN) {
+                    values.put(name, reader.nextString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException e) {
+            throw new BadRequestException("Request body must be a JSON object: " + e.getMessage());
+        }
+        return values;
+    }
+
+    private static int intParam(Map<String, String> values, String name, int defaultValue, int min, int max) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = (int) Double.parseDouble(value.trim());
+            if (parsed < min || parsed > max) {
+                throw new BadRequestException(name + " must be between " + min + " and " + max);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(name + " must be a number");
+        }
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : "";
+    }
+
+    private static Map<String, String> queryParams(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            params.put(eq < 0 ? pair : pair.substring(0, eq), eq < 0 ? "" : pair.substring(eq + 1));
+        }
+        return params;
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, "{\"error\": " + JsonReader.quote(message) + "}");
+    }
+
+    /**
+     * Client error reported as 400
+     */
+    private static class BadRequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        QuestionBank questionBank = new QuestionBank();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : questionBank.getConfig().getServerPort();
+
+        QuizServer quizServer = new QuizServer(port, questionBank);
+        quizServer.start();
+        Metrics.startPeriodicDump(questionBank.getConfig().getMetricsDumpIntervalSeconds());
+        System.out.println("Quiz server listening on http://localhost:" + quizServer.getPort() + "/api/");
+        System.out.println("Metrics at http://localhost:" + quizServer.getPort() + "/metrics");
+    }
+}
@@ -0,0 +1,390 @@
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One quiz attempt, independent of any UI.
+ * Holds the questions, current position, scoring and timing, and moves
+ * through LOADING -> ASKING -> ANSWERED / TIMED_OUT -> ... -> FINISHED.
+ * Questions may still be arriving while the quiz runs; if the current one
+ * is not there yet the session waits for it. Views and servers drive the
+ * session through its methods and follow it through a Listener.
+ *
+ * All methods take the session lock, so a session can be fed questions
+ * from a loader thread while a client answers on another. Listener
+ * callbacks run on the thread that caused them, while the lock is held.
+ * A server can pass in its own lock so its per-session state and waits
+ * are guarded by the same lock as the session.
+ */
+public class QuizSession {
+    private static final Metrics.Histogram FIRST_QUESTION_LATENCY = Metrics.latency("quiz_first_question_seconds",
+        "Time from starting a quiz to showing its first question");
+
+    public enum State {
+        LOADING,               // created, not started
+        WAITING_FOR_QUESTION,  // started, current question not generated yet
+        ASKING,                // current question shown, clock running
+        ANSWERED,              // current question answered
+        TIMED_OUT,             // current question ran out of time
+        FINISHED,              // result recorded
+        ABANDONED              // quit before the end
+    }
+
+    /**
+     * Receives session events; every method is optional
+     */
+    public interface Listener {
+        default void questionShown(int index, Question question) {}
+        default void waitingForQuestion(int index) {}
+        default void answered(int index, Question question, int selectedIndex, boolean correct, int points) {}
+        default void timedOut(int index, Question question) {}
+        default void questionCountChanged(int questionCount) {}
+        default void finished(QuizResult result) {}
+    }
+
+    private final UserProfile userProfile;
+    private final String domain;
+    private final String difficulty;
+    private final int timePerQuestion;
+    private final List<Question> questions;
+    private final Lock lock;
+    private Listener listener;
+
+    private State state;
+    private int questionCount;
+    private int currentQuestionIndex;
+    private int correctAnswers;
+    private int totalScore;
+    private boolean questionsLoaded;
+    private boolean firstQuestionShown;
+    private long startTime;
+    private long startNanos;
+    private long questionStartTime;
+    private QuizResult result;
+
+    /**
+     * @param userProfile profile the result is recorded to, or null to not record it
+     */
+    public QuizSession(UserProfile userProfile, String domain, String difficulty,
+                       int questionCount, int timePerQuestion) {
+        this(userProfile, domain, difficulty, questionCount, timePerQuestion, new ReentrantLock());
+    }
+
+    /**
+     * @param userProfile profile the result is recorded to, or null to not record it
+     * @param lock guards the session's state; must be reentrant, as listeners may take it again
+     */
+    public QuizSession(UserProfile userProfile, String domain, String difficulty,
+                       int questionCount, int timePerQuestion, Lock lock) {
+        this.userProfile = userProfile;
+        this.domain = domain;
+        this.difficulty = difficulty;
+        this.questionCount = questionCount;
+        this.timePerQuestion = timePerQuestion;
+        this.questions = new ArrayList<>();
+        this.lock = lock;
+        this.listener = new Listener() {};
+        this.state = State.LOADING;
+    }
+
+    public void setListener(Listener listener) {
+        lock.lock();
+        try {
+            this.listener = listener != null ? listener : new Listener() {};
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- loading
+
+    /**
+     * Add the next generated question. Extra questions are ignored.
+     */
+    public void addQuestion(Question question) {
+        lock.lock();
+        try {
+            if (isOver() || questions.size() >= questionCount) {
+                return;
+            }
+
+            questions.add(question);
+            if (state == State.WAITING_FOR_QUESTION && currentQuestionIndex < questions.size()) {
+                askCurrentQuestion();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * No more questions are coming; a short supply shortens the quiz
+     */
+    public void finishLoading() {
+        lock.lock();
+        try {
+            questionsLoaded = true;
+            if (isOver()) {
+                return;
+            }
+
+            if (questions.size() < questionCount) {
+                questionCount = questions.size();
+                listener.questionCountChanged(questionCount);
+            }
+
+            if (state == State.WAITING_FOR_QUESTION) {
+                showCurrentQuestionOrWait();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- playing
+
+    public void start() {
+        lock.lock();
+        try {
+            if (state != State.LOADING) {
+                throw new IllegalStateException("Session already started");
+            }
+            startTime = System.currentTimeMillis();
+            startNanos = System.nanoTime();
+            showCurrentQuestionOrWait();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Answer the current question.
+     *
+     * @return points scored, 0 if wrong
+     */
+    public int answer(int selectedIndex) {
+        lock.lock();
+        try {
+            if (state != State.ASKING) {
+                throw new IllegalStateException("No question to answer in state " + state);
+            }
+
+            long timeTaken = System.currentTimeMillis() - questionStartTime;
+            Question question = questions.get(currentQuestionIndex);
+            boolean correct = question.isCorrect(selectedIndex);
+
+            int points = 0;
+            if (correct) {
+                correctAnswers++;
+                points = scoreFor(difficulty, timeTaken, timePerQuestion);
+                totalScore += points;
+            }
+
+            state = State.ANSWERED;
+            listener.answered(currentQuestionIndex, question, selectedIndex, correct, points);
+            return points;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The current question's time ran out
+     */
+    public void timeout() {
+        lock.lock();
+        try {
+            if (state != State.ASKING) {
+                return; // Answered just before the clock fired
+            }
+            state = State.TIMED_OUT;
+            listener.timedOut(currentQuestionIndex, questions.get(currentQuestionIndex));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move on after an answer or timeout; finishes after the last question
+     */
+    public void next() {
+        lock.lock();
+        try {
+            if (state != State.ANSWERED && state != State.TIMED_OUT) {
+                throw new IllegalStateException("Cannot move on in state " + state);
+            }
+            currentQuestionIndex++;
+            if (currentQuestionIndex < questionCount) {
+                showCurrentQuestionOrWait();
+            } else {
+                finish();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Quit without recording a result
+     */
+    public void abandon() {
+        lock.lock();
+        try {
+            if (isOver()) {
+                return;
+            }
+            // Questions already shown count as seen even if the quiz is dropped
+            boolean currentShown = state != State.LOADING && state != State.WAITING_FOR_QUESTION;
+            int shown = Math.min(questions.size(), currentQuestionIndex + (currentShown ? 1 : 0));
+            state = State.ABANDONED;
+        
+            if (userProfile != null) {
+                userProfile.markQuestionsSeen(new ArrayList<>(questions.subList(0, shown)));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Points for a correct answer: by difficulty, with a 50% bonus for
+     * answering in under half the time allowed
+     */
+    public static int scoreFor(String difficulty, long timeTakenMillis, int timePerQuestion) {
+        int points;
+        switch (difficulty) {
+            case "Easy": points = 10; break;
+            case "Medium": points = 20; break;
+            case "Hard": points = 30; break;
+            default: points = 10;
+        }
+
+        if (timeTakenMillis < (timePerQuestion * 1000L / 2)) {
+            points = (int) (points * 1.5);
+        }
+        return points;
+    }
+
+    private void showCurrentQuestionOrWait() {
+        if (currentQuestionIndex < questions.size()) {
+            askCurrentQuestion();
+        } else if (!questionsLoaded) {
+            state = State.WAITING_FOR_QUESTION;
+            listener.waitingForQuestion(currentQuestionIndex);
+        } else {
+            finish();
+        }
+    }
+
+    private void askCurrentQuestion() {
+        if (!firstQuestionShown) {
+            firstQuestionShown = true;
+            FIRST_QUESTION_LATENCY.recordSince(startNanos);
+        }
+        state = State.ASKING;
+        questionStartTime = System.currentTimeMillis();
+        listener.questionShown(currentQuestionIndex, questions.get(currentQuestionIndex));
+    }
+
+    private void finish() {
+        long totalTimeTaken = (System.currentTimeMillis() - startTime) / 1000;
+        result = new QuizResult(domain, difficulty, correctAnswers, questions.size(), totalTimeTaken);
+        state = State.FINISHED;
+
+        if (userProfile != null) {
+            userProfile.recordQuizResult(domain, result);
+            userProfile.markQuestionsSeen(questions);
+        }
+        listener.finished(result);
+    }
+
+    private boolean isOver() {
+        return state == State.FINISHED || state == State.ABANDONED;
+    }
+
+    // ---------------------------------------------------------------- getters
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Question getCurrentQuestion() {
+        lock.lock();
+        try {
+            return currentQuestionIndex < questions.size() ? questions.get(currentQuestionIndex) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCurrentQuestionIndex() {
+        lock.lock();
+        try {
+            return currentQuestionIndex;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQuestionCount() {
+        lock.lock();
+        try {
+            return questionCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<Question> getQuestions() {
+        lock.lock();
+        try {
+            return new ArrayList<>(questions);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCorrectAnswers() {
+        lock.lock();
+        try {
+            return correctAnswers;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getTotalScore() {
+        lock.lock();
+        try {
+            return totalScore;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public QuizResult getResult() {
+        lock.lock();
+        try {
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    public int getTimePerQuestion() {
+        return timePerQuestion;
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides when a slow Gemini call gets a hedge: a second, identical request
+ * raced against the first, whichever answers first winning. A call is
+ * hedged once it has run longer than a percentile (p90 by default) of the
+ * recent successful calls, so only the tail is doubled up.
+ *
+ * Hedges are capped at a fraction of traffic: every call earns that
+ * fraction of a hedge credit and a hedge spends a whole one, so hedges can
+ * never exceed the fraction of calls, even while every call is slow.
+ */
+public class RequestHedger {
+    public static final int DEFAULT_PERCENTILE = 90;
+    public static final int DEFAULT_MAX_PERCENT = 5;
+    public static final long DEFAULT_MIN_DELAY_MILLIS = 1_000;
+    private static final int WINDOW = 256;
+    private static final int MIN_SAMPLES = 20;
+    private static final double MAX_CREDIT = 10;
+
+    private static final Map<String, RequestHedger> SHARED = new ConcurrentHashMap<>();
+
+    private final String name;
+    private boolean enabled;
+    private int percentile = DEFAULT_PERCENTILE;
+    private double maxFraction = DEFAULT_MAX_PERCENT / 100.0;
+    private long minDelayMillis = DEFAULT_MIN_DELAY_MILLIS;
+
+    // Latencies of recent successful calls, as a ring
+    private final long[] samples = new long[WINDOW];
+    private int sampleCount;
+    private int nextSample;
+    private double credit;
+
+    private long callCount;
+    private long hedgeCount;
+    private long hedgeWinCount;
+
+    public RequestHedger(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the hedger shared by every caller of an endpoint in this JVM
+     */
+    public static RequestHedger shared(String name) {
+        return SHARED.computeIfAbsent(name, RequestHedger::new);
+    }
+
+    /**
+     * @param percentile recent-latency percentile after which a call is hedged
+     * @param maxPercent most hedges allowed, as a percentage of calls
+     * @param minDelayMillis never hedge a call sooner than this
+     */
+    public synchronized void configure(boolean enabled, int percentile, int maxPercent, long minDelayMillis) {
+        this.enabled = enabled;
+        this.percentile = Math.max(1, Math.min(99, percentile));
+        this.maxFraction = Math.max(0, Math.min(100, maxPercent)) / 100.0;
+        this.minDelayMillis = Math.max(0, minDelayMillis);
+    }
+
+    /**
+     * Record how long a successful call took
+     */
+    public synchronized void recordLatency(long millis) {
+        samples[nextSample] = millis;
+        nextSample = (nextSample + 1) % WINDOW;
+        sampleCount = Math.min(WINDOW, sampleCount + 1);
+    }
+
+    /**
+     * Register a call about to be made and earn its hedge credit
+     *
+     * @return how long to let it run before hedging, or -1 not to hedge it
+     */
+    public synchronized long onCall() {
+        if (!enabled) {
+            return -1;
+        }
+        callCount++;
+        credit = Math.min(MAX_CREDIT, credit + maxFraction);
+        if (sampleCount < MIN_SAMPLES || credit < 1) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return Math.max(minDelayMillis, sorted[Math.max(0, rank - 1)]);
+    }
+
+    /**
+     * Spend a credit on a hedge; false if the budget is used up
+     */
+    public synchronized boolean tryHedge() {
+        if (credit < 1) {
+            return false;
+        }
+        credit -= 1;
+        hedgeCount++;
+        return true;
+    }
+
+    /**
+     * A hedge answered before the call it was racing
+     */
+    public synchronized void onHedgeWon() {
+        hedgeWinCount++;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized long getCallCount() {
+        return callCount;
+    }
+
+    public synchronized long getHedgeCount() {
+        return hedgeCount;
+    }
+
+    public synchronized long getHedgeWinCount() {
+        return hedgeWinCount;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
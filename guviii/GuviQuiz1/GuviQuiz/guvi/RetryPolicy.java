@@ -0,0 +1,61 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When and how long to wait before retrying a Gemini call: exponential
+ * backoff with full jitter (a random delay up to base * 2^attempt, capped).
+ * A Retry-After is honoured by ApiKeyPool benching that key, so a retry may
+ * go out at once on another key. A retry that would end past the
+ * operation's time budget is not made, and an open circuit is never waited
+ * on, so during an outage callers fall back at once.
+ */
+public class RetryPolicy {
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long budgetMillis;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, long budgetMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.budgetMillis = Math.max(0, budgetMillis);
+    }
+
+    public static RetryPolicy fromConfig(Config config) {
+        return new RetryPolicy(config.getRetryMaxAttempts(), config.getRetryBaseDelayMillis(),
+            config.getRetryMaxDelayMillis(), config.getRetryBudgetMillis());
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    /**
+     * Whether a failure is worth retrying at all
+     */
+    public boolean isRetryable(Exception failure) {
+        if (failure == null) {
+            return true; // A short but successful response
+        }
+        if (failure instanceof InterruptedException || failure instanceof CircuitBreaker.OpenException
+                || failure instanceof GeminiRequestScheduler.QueueTimeoutException) {
+            return false;
+        }
+        if (failure instanceof GeminiApiException) {
+            return ((GeminiApiException) failure).isRetryable();
+        }
+        return true; // Timeouts, dropped connections and unparseable bodies
+    }
+
+    /**
+     * Delay before the given retry (1 = first retry)
+     */
+    public long delayMillis(int retry) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(retry - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -2,6 +2,7 @@ import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Modern rules screen with attractive design and customization options
@@ -32,6 +33,10 @@ public class Rules extends JFrame {
         this.difficulty = difficulty;
         this.questionBank = questionBank;
         
+        // Start filling the question pool while the user reads the rules;
+        // opening the pool reads from disk, so keep it off the EDT
+        CompletableFuture.runAsync(() -> questionBank.prewarm(domain, difficulty));
+        
         setTitle("Quiz Setup - " + domain);
         setSize(750, 650);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -384,14 +389,14 @@ public class Rules extends JFrame {
         
         setVisible(false);
         
-        SwingUtilities.invokeLater(() -> {
-            Quiz quizScreen = new Quiz(
-                userProfile, domain, difficulty, questionBank,
-                questionCount, timePerQuestion, reviewAnswers, 
-                showExplanations, soundEffects
-            );
-            quizScreen.startQuiz();
-        });
+        // Opens at once; questions are generated in the background and the
+        // quiz shows its progress until the first one arrives
+        Quiz quizScreen = new Quiz(
+            userProfile, domain, difficulty, questionBank,
+            questionCount, timePerQuestion, reviewAnswers, 
+            showExplanations, soundEffects
+        );
+        quizScreen.startQuiz();
     }
     
     private void goBackToLogin() {
@@ -0,0 +1,118 @@
+import java.time.LocalDateTime;
+
+/**
+ * Running aggregates over quiz results: count, sum and sum of squares of
+ * the percentage score, best and worst score, total time and the latest
+ * completion time. Updated in O(1) as each result arrives, so statistics
+ * never need to walk the result history.
+ */
+public class ScoreStats {
+    private int count;
+    private double sum;
+    private double sumOfSquares;
+    private double best;
+    private double worst;
+    private long totalTimeSeconds;
+    private LocalDateTime lastCompleted;
+
+    public ScoreStats() {
+    }
+
+    ScoreStats(int count, double sum, double sumOfSquares, double best, double worst,
+               long totalTimeSeconds, LocalDateTime lastCompleted) {
+        this.count = count;
+        this.sum = sum;
+        this.sumOfSquares = sumOfSquares;
+        this.best = best;
+        this.worst = worst;
+        this.totalTimeSeconds = totalTimeSeconds;
+        this.lastCompleted = lastCompleted;
+    }
+
+    public void add(QuizResult result) {
+        double score = result.getPercentageScore();
+        if (Double.isNaN(score)) {
+            score = 0; // Quiz with no questions
+        }
+
+        if (count == 0) {
+            best = score;
+            worst = score;
+        } else {
+            best = Math.max(best, score);
+            worst = Math.min(worst, score);
+        }
+        count++;
+        sum += score;
+        sumOfSquares += score * score;
+        totalTimeSeconds += result.getTimeTakenSeconds();
+
+        LocalDateTime completed = result.getCompletionDate();
+        if (completed != null && (lastCompleted == null || completed.isAfter(lastCompleted))) {
+            lastCompleted = completed;
+        }
+    }
+
+    /**
+     * Fold another set of aggregates into this one
+     */
+    public void merge(ScoreStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            best = other.best;
+            worst = other.worst;
+        } else {
+            best = Math.max(best, other.best);
+            worst = Math.min(worst, other.worst);
+        }
+        count += other.count;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+        totalTimeSeconds += other.totalTimeSeconds;
+        if (other.lastCompleted != null && (lastCompleted == null || other.lastCompleted.isAfter(lastCompleted))) {
+            lastCompleted = other.lastCompleted;
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    public double getStandardDeviation() {
+        if (count == 0) {
+            return 0;
+        }
+        double mean = sum / count;
+        return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+    }
+
+    public double getBest() {
+        return best;
+    }
+
+    public double getWorst() {
+        return worst;
+    }
+
+    public long getTotalTimeSeconds() {
+        return totalTimeSeconds;
+    }
+
+    public LocalDateTime getLastCompleted() {
+        return lastCompleted;
+    }
+
+    double getSum() {
+        return sum;
+    }
+
+    double getSumOfSquares() {
+        return sumOfSquares;
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.*;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Questions a user has already been shown, kept as a Bloom filter over
+ * question fingerprints. Checks and inserts are O(1) and never touch the
+ * quiz history.
+ *
+ * Two generations of CAPACITY fingerprints are kept; when the current one
+ * fills up the older one is dropped. Memory stays near 10KB however many
+ * quizzes are taken, and the last CAPACITY to 2 * CAPACITY questions are
+ * always remembered. A false positive (about 1% per generation) only means
+ * an unseen question is occasionally skipped.
+ *
+ * Stored as profiles/<username>.seen next to the profile.
+ */
+public class SeenQuestionFilter {
+    static final int CAPACITY = 4096;
+    private static final int BITS = 40_960;     // ~1% false positives at CAPACITY
+    private static final int HASHES = 7;
+    private static final int WORDS = BITS / 64;
+    private static final byte[] MAGIC = {'Q', 'Z', 'S', 'F'};
+    private static final int VERSION = 1;
+
+    private long[] current;
+    private long[] previous;
+    private int currentCount;
+
+    public SeenQuestionFilter() {
+        this.current = new long[WORDS];
+    }
+
+    public boolean mightContain(Question question) {
+        return mightContain(question.getFingerprint());
+    }
+
+    public synchronized boolean mightContain(String fingerprint) {
+        long hash = hash(fingerprint);
+        return contains(current, hash) || (previous != null && contains(previous, hash));
+    }
+
+    public void add(Question question) {
+        add(question.getFingerprint());
+    }
+
+    public synchronized void add(String fingerprint) {
+        long hash = hash(fingerprint);
+        if (contains(current, hash)) {
+            return;
+        }
+
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, BITS);
+            current[bit >>> 6] |= 1L << bit;
+        }
+
+        if (++currentCount >= CAPACITY) {
+            previous = current;
+            current = new long[WORDS];
+            currentCount = 0;
+        }
+    }
+
+    public void addAll(Collection<Question> questions) {
+        for (Question question : questions) {
+            add(question);
+        }
+    }
+
+    private static boolean contains(long[] bits, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, BITS);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64-bit FNV-1a over the fingerprint, finished with a MurmurHash3 mix
+     */
+    private static long hash(String fingerprint) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < fingerprint.length(); i++) {
+            hash ^= fingerprint.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    // ---------------------------------------------------------------- storage
+
+    /**
+     * Load a stored filter, or start an empty one if there is none
+     */
+    public static SeenQuestionFilter load(File file) {
+        SeenQuestionFilter filter = new SeenQuestionFilter();
+        if (!file.exists()) {
+            return filter;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            int version = in.readUnsignedByte();
+            if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+                throw new IOException("not a seen-question filter");
+            }
+
+            filter.currentCount = in.readInt();
+            readWords(in, filter.current);
+            if (in.readBoolean()) {
+                filter.previous = new long[WORDS];
+                readWords(in, filter.previous);
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading seen questions: " + e.getMessage());
+            return new SeenQuestionFilter();
+        }
+        return filter;
+    }
+
+    /**
+     * Save via a temp file so a crash can't leave it half-written
+     */
+    public synchronized void save(File file) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(currentCount);
+            writeWords(out, current);
+            out.writeBoolean(previous != null);
+            if (previous != null) {
+                writeWords(out, previous);
+            }
+        }
+
+        if (!tempFile.renameTo(file)) {
+            file.delete();
+            tempFile.renameTo(file);
+        }
+    }
+
+    private static void readWords(DataInputStream in, long[] words) throws IOException {
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+    }
+
+    private static void writeWords(DataOutputStream out, long[] words) throws IOException {
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+}
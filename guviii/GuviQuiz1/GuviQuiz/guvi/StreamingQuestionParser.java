@@ -0,0 +1,83 @@
+import java.util.function.Consumer;
+
+/**
+ * Incremental splitter for a JSON array of question objects that arrives
+ * in arbitrary chunks. Each top-level object is handed to the listener as
+ * soon as its closing brace is seen, so callers can use the first question
+ * while the rest of the array is still being generated.
+ */
+public class StreamingQuestionParser {
+    private final Consumer<String> onObject;
+    private final StringBuilder current;
+    private boolean inArray;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private int objectsEmitted;
+
+    public StreamingQuestionParser(Consumer<String> onObject) {
+        this.onObject = onObject;
+        this.current = new StringBuilder();
+    }
+
+    /**
+     * Feed the next chunk of model output
+     */
+    public void feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            accept(chunk.charAt(i));
+        }
+    }
+
+    private void accept(char c) {
+        // Skip any preamble (markdown fences, prose) until the array opens
+        if (!inArray) {
+            if (c == '[') {
+                inArray = true;
+            }
+            return;
+        }
+
+        if (depth == 0) {
+            if (c == '{') {
+                depth = 1;
+                current.setLength(0);
+                current.append(c);
+            }
+            return;
+        }
+
+        current.append(c);
+
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+            }
+            return;
+        }
+
+        if (c == '"') {
+            inString = true;
+        } else if (c == '{') {
+            depth++;
+        } else if (c == '}') {
+            depth--;
+            if (depth == 0) {
+                objectsEmitted++;
+                onObject.accept(current.toString());
+                current.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Number of complete objects handed to the listener so far
+     */
+    public int getObjectsEmitted() {
+        return objectsEmitted;
+    }
+}
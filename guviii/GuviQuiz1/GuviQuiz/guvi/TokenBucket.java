@@ -0,0 +1,86 @@
+/**
+ * Token bucket for a per-minute quota. Holds up to burst tokens and refills
+ * continuously at (perMinute - burst) per minute, so no 60-second window can
+ * ever see more than perMinute tokens spent. A limit of 0 means unlimited.
+ *
+ * Balances may go negative when a cost turns out higher than reserved; the
+ * debt is paid off by refill before anything else is let through.
+ *
+ * Not thread-safe; callers guard it with their own lock.
+ */
+public class TokenBucket {
+    private final long perMinute;
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(long perMinute) {
+        this.perMinute = Math.max(0, perMinute);
+        this.capacity = Math.max(1, this.perMinute / 6); // Ten seconds' worth of burst
+        double refillPerMinute = this.perMinute > capacity ? this.perMinute - capacity : this.perMinute;
+        this.tokensPerNano = refillPerMinute / 60e9;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public boolean isUnlimited() {
+        return perMinute == 0;
+    }
+
+    public long getPerMinute() {
+        return perMinute;
+    }
+
+    /**
+     * Nanoseconds until amount tokens are available; 0 if they are now.
+     * Amounts above the burst capacity are treated as the full capacity.
+     */
+    public long nanosUntil(long amount) {
+        if (isUnlimited()) {
+            return 0;
+        }
+        refill();
+        double missing = Math.min(amount, capacity) - tokens;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / tokensPerNano);
+    }
+
+    /**
+     * Spend tokens; the balance may go negative. Like nanosUntil, an amount
+     * above the burst capacity is charged as the full capacity.
+     *
+     * @return the tokens actually charged, which is what a later adjust
+     *         should settle against
+     */
+    public long take(long amount) {
+        if (isUnlimited()) {
+            return 0;
+        }
+        refill();
+        long charged = (long) Math.min(amount, capacity);
+        tokens -= charged;
+        return charged;
+    }
+
+    /**
+     * Give back tokens that were not used, or (with a negative amount)
+     * charge for ones used beyond what was taken
+     */
+    public void adjust(long amount) {
+        if (!isUnlimited()) {
+            refill();
+            tokens = Math.min(capacity, tokens + amount);
+        }
+    }
+
+    public double available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
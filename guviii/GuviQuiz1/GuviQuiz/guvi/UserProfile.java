@@ -3,25 +3,66 @@ import java.util.*;
 
 /**
  * Handles user profile management and progress tracking
+ * Profiles are stored in ProfileFormat; Serializable is kept only so
+ * profiles saved by older versions can still be imported.
  */
 public class UserProfile implements Serializable {
     private static final long serialVersionUID = 1L;
+    private static volatile File profilesDirectory = new File("profiles");
     private String username;
     private Map<String, List<QuizResult>> quizHistory;
     private int totalQuizzesTaken;
-    private int achievementPoints;
-    private List<String> earnedBadges;
+    private int achievementPoints;      // legacy form only; live state is in achievements
+    private List<String> earnedBadges;  // legacy form only; live state is in achievements
     private String preferredDifficulty;
     private String preferredTheme;
     
+    // Journal state; not part of the legacy serialized form
+    private static final int COMPACT_AFTER_RECORDS = 50;
+    private static final Metrics.Histogram LOAD_LATENCY = Metrics.latency("profile_load_seconds",
+        "Time to load a profile snapshot and replay its journal");
+    private static final Metrics.Histogram SAVE_LATENCY = Metrics.latency("profile_save_seconds",
+        "Time to write a full profile snapshot");
+    private transient long journalSequence;
+    private transient int journalRecords;
+    
+    // Running aggregates per domain and difficulty, kept up to date as results arrive
+    private transient Map<String, Map<String, ScoreStats>> scoreStats;
+    
+    // Earned badges and the rule state behind them
+    private transient AchievementEngine achievements;
+    
+    // Questions already shown to this user; loaded on first use
+    private transient SeenQuestionFilter seenQuestions;
+    
     public UserProfile(String username) {
         this.username = username;
         this.quizHistory = new HashMap<>();
         this.totalQuizzesTaken = 0;
-        this.achievementPoints = 0;
-        this.earnedBadges = new ArrayList<>();
         this.preferredDifficulty = "Medium";
         this.preferredTheme = "Light";
+        this.scoreStats = new HashMap<>();
+        this.achievements = new AchievementEngine(Collections.emptyList(), 0);
+    }
+    
+    /**
+     * Recreate a stored profile
+     */
+    UserProfile(String username, Map<String, List<QuizResult>> quizHistory, int totalQuizzesTaken,
+                int achievementPoints, Collection<String> earnedBadges,
+                String preferredDifficulty, String preferredTheme,
+                Map<String, Map<String, ScoreStats>> scoreStats) {
+        this.username = username;
+        this.quizHistory = quizHistory;
+        this.totalQuizzesTaken = totalQuizzesTaken;
+        this.preferredDifficulty = preferredDifficulty;
+        this.preferredTheme = preferredTheme;
+        this.scoreStats = scoreStats;
+        if (scoreStats == null) {
+            rebuildScoreStats();
+        }
+        this.achievements = new AchievementEngine(earnedBadges, achievementPoints);
+        this.achievements.prime(quizHistory);
     }
     
     public void addQuizResult(String domain, QuizResult result) {
@@ -30,95 +71,360 @@ public class UserProfile implements Serializable {
         }
         quizHistory.get(domain).add(result);
         totalQuizzesTaken++;
+        statsFor(domain, result.getDifficulty()).add(result);
         
         // Check for achievements
-        checkForAchievements();
+        achievements.onResult(domain, result);
     }
     
-    private void checkForAchievements() {
-        // First quiz completed
-        if (totalQuizzesTaken == 1 && !earnedBadges.contains("First Quiz")) {
-            earnedBadges.add("First Quiz");
-            achievementPoints += 10;
-        }
-        
-        // Fifth quiz completed
-        if (totalQuizzesTaken == 5 && !earnedBadges.contains("Quiz Enthusiast")) {
-            earnedBadges.add("Quiz Enthusiast");
-            achievementPoints += 25;
-        }
-        
-        // Perfect score achievement
-        for (Map.Entry<String, List<QuizResult>> entry : quizHistory.entrySet()) {
-            List<QuizResult> results = entry.getValue();
-            if (!results.isEmpty()) {
-                QuizResult latestResult = results.get(results.size() - 1);
-                if (latestResult.isPerfectScore() && !earnedBadges.contains("Perfect Score: " + entry.getKey())) {
-                    earnedBadges.add("Perfect Score: " + entry.getKey());
-                    achievementPoints += 50;
-                }
-            }
-        }
+    AchievementEngine getAchievements() {
+        return achievements;
     }
     
     public Map<String, Double> getAverageScores() {
         Map<String, Double> averages = new HashMap<>();
         
-        for (Map.Entry<String, List<QuizResult>> entry : quizHistory.entrySet()) {
-            String domain = entry.getKey();
-            List<QuizResult> results = entry.getValue();
-            
-            if (results.isEmpty()) continue;
-            
-            double sum = 0;
-            for (QuizResult result : results) {
-                sum += result.getPercentageScore();
+        for (String domain : scoreStats.keySet()) {
+            ScoreStats stats = getScoreStats(domain);
+            if (stats.getCount() > 0) {
+                averages.put(domain, stats.getAverage());
             }
-            averages.put(domain, sum / results.size());
         }
         
         return averages;
     }
     
+    /**
+     * Aggregates for a domain across all difficulties
+     */
+    public ScoreStats getScoreStats(String domain) {
+        ScoreStats total = new ScoreStats();
+        for (ScoreStats stats : scoreStats.getOrDefault(domain, Collections.emptyMap()).values()) {
+            total.merge(stats);
+        }
+        return total;
+    }
+    
+    /**
+     * Aggregates for one domain and difficulty
+     */
+    public ScoreStats getScoreStats(String domain, String difficulty) {
+        ScoreStats stats = scoreStats.getOrDefault(domain, Collections.emptyMap()).get(difficulty);
+        return stats != null ? stats : new ScoreStats();
+    }
+    
+    Map<String, Map<String, ScoreStats>> getAllScoreStats() {
+        return scoreStats;
+    }
+    
+    private ScoreStats statsFor(String domain, String difficulty) {
+        return scoreStats.computeIfAbsent(domain, d -> new HashMap<>())
+                         .computeIfAbsent(difficulty == null ? "" : difficulty, d -> new ScoreStats());
+    }
+    
+    // Recompute aggregates from the full history, for profiles saved before they existed
+    private void rebuildScoreStats() {
+        scoreStats = new HashMap<>();
+        for (Map.Entry<String, List<QuizResult>> entry : quizHistory.entrySet()) {
+            for (QuizResult result : entry.getValue()) {
+                statsFor(entry.getKey(), result.getDifficulty()).add(result);
+            }
+        }
+    }
+    
     public List<QuizResult> getResultsForDomain(String domain) {
         return quizHistory.getOrDefault(domain, new ArrayList<>());
     }
     
-    // Save the profile to file
+    Map<String, List<QuizResult>> getQuizHistory() {
+        return quizHistory;
+    }
+    
+    long getJournalSequence() {
+        return journalSequence;
+    }
+    
+    void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+    
+    /**
+     * Add a finished quiz and persist it as one journal record, without
+     * rewriting the rest of the profile
+     */
+    public void recordQuizResult(String domain, QuizResult result) {
+        ProfileJournal journal = journal();
+        boolean added = false;
+        try {
+            journal.lock();
+            try {
+                catchUp();
+                addQuizResult(domain, result);
+                added = true;
+                if (startJournal()) {
+                    journal.appendResult(++journalSequence, domain, result);
+                    journalWritten();
+                }
+            } finally {
+                journal.unlock();
+            }
+        } catch (IOException e) {
+            System.err.println("Error journaling quiz result: " + e.getMessage());
+            if (!added) {
+                addQuizResult(domain, result);
+            }
+            saveProfile();
+        }
+    }
+    
+    /**
+     * Questions this user has already been shown, for skipping repeats
+     */
+    public synchronized SeenQuestionFilter getSeenQuestions() {
+        if (seenQuestions == null) {
+            seenQuestions = SeenQuestionFilter.load(seenQuestionsFile());
+        }
+        return seenQuestions;
+    }
+    
+    /**
+     * Remember questions as seen and persist the filter
+     */
+    public void markQuestionsSeen(Collection<Question> questions) {
+        if (questions.isEmpty()) {
+            return;
+        }
+        SeenQuestionFilter seen = getSeenQuestions();
+        seen.addAll(questions);
+        try {
+            profilesDirectory.mkdirs();
+            seen.save(seenQuestionsFile());
+        } catch (IOException e) {
+            System.err.println("Error saving seen questions: " + e.getMessage());
+        }
+    }
+    
+    private File seenQuestionsFile() {
+        return new File(profilesDirectory, username + ".seen");
+    }
+    
+    /**
+     * Change the preferred difficulty and theme and persist them as one journal record
+     */
+    public void updatePreferences(String preferredDifficulty, String preferredTheme) {
+        ProfileJournal journal = journal();
+        try {
+            journal.lock();
+            try {
+                catchUp();
+                this.preferredDifficulty = preferredDifficulty;
+                this.preferredTheme = preferredTheme;
+                if (startJournal()) {
+                    journal.appendPreferences(++journalSequence, preferredDifficulty, preferredTheme);
+                    journalWritten();
+                }
+            } finally {
+                journal.unlock();
+            }
+        } catch (IOException e) {
+            System.err.println("Error journaling preferences: " + e.getMessage());
+            this.preferredDifficulty = preferredDifficulty;
+            this.preferredTheme = preferredTheme;
+            saveProfile();
+        }
+    }
+    
+    /**
+     * Pick up changes made through other instances of this profile (the
+     * desktop app and the quiz server may both have it open) so that the
+     * next journal sequence number follows theirs instead of colliding with
+     * them. Must be called holding the journal lock.
+     */
+    private void catchUp() throws IOException {
+        File profileFile = new File(profilesDirectory, username + ".dat");
+        if (profileFile.exists()) {
+            long snapshotSequence;
+            try (InputStream in = new BufferedInputStream(new FileInputStream(profileFile))) {
+                snapshotSequence = ProfileFormat.readJournalSequence(in);
+            }
+            if (snapshotSequence > journalSequence) {
+                adopt(loadSnapshot(username));
+            }
+        }
+        journalRecords = journal().replay(this);
+    }
+    
+    // Take over the state of a freshly loaded copy of this profile
+    private void adopt(UserProfile latest) {
+        this.quizHistory = latest.quizHistory;
+        this.totalQuizzesTaken = latest.totalQuizzesTaken;
+        this.preferredDifficulty = latest.preferredDifficulty;
+        this.preferredTheme = latest.preferredTheme;
+        this.scoreStats = latest.scoreStats;
+        this.achievements = latest.achievements;
+        this.journalSequence = latest.journalSequence;
+    }
+    
+    /**
+     * The journal needs a snapshot to apply to; a brand-new profile gets a
+     * full save instead. Returns true if the change should be journaled.
+     */
+    private boolean startJournal() {
+        if (new File(profilesDirectory, username + ".dat").exists()) {
+            return true;
+        }
+        saveProfile();
+        return false;
+    }
+    
+    // Fold the journal into a fresh snapshot once it gets long
+    private void journalWritten() {
+        if (++journalRecords >= COMPACT_AFTER_RECORDS) {
+            saveProfile();
+        }
+    }
+    
+    private ProfileJournal journal() {
+        return new ProfileJournal(new File(profilesDirectory, username + ".log"));
+    }
+    
+    // Save a full snapshot, via a temp file so a crash can't leave it half-written.
+    // The snapshot includes everything in the journal, so the journal is then dropped;
+    // if the snapshot can't be put in place the journal is kept.
     public void saveProfile() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream("profiles/" + username + ".dat"))) {
-            oos.writeObject(this);
+        long started = System.nanoTime();
+        File directory = profilesDirectory;
+        if (!directory.exists()) {
+            directory.mkdir();
+        }
+        
+        ProfileJournal journal = journal();
+        try {
+            journal.lock();
         } catch (IOException e) {
             System.err.println("Error saving profile: " + e.getMessage());
+            return;
+        }
+        try {
+            catchUp();
+            
+            File profileFile = new File(directory, username + ".dat");
+            File tempFile = new File(directory, username + ".dat.tmp");
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+                ProfileFormat.write(this, out);
+            }
+            
+            if (!tempFile.renameTo(profileFile)) {
+                profileFile.delete();
+                if (!tempFile.renameTo(profileFile)) {
+                    System.err.println("Error saving profile: could not replace " + profileFile.getName());
+                    tempFile.delete();
+                    return;
+                }
+            }
+            
+            journal.delete();
+            journalRecords = 0;
+            SAVE_LATENCY.recordSince(started);
+        } catch (IOException e) {
+            System.err.println("Error saving profile: " + e.getMessage());
+            new File(directory, username + ".dat.tmp").delete();
+        } finally {
+            journal.unlock();
         }
     }
     
-    // Load a profile from file by username
+    // Load a profile from file by username: the snapshot plus any journaled changes
     public static UserProfile loadProfile(String username) {
-        File directory = new File("profiles");
+        long started = System.nanoTime();
+        File directory = profilesDirectory;
         if (!directory.exists()) {
             directory.mkdir();
         }
         
-        File profileFile = new File("profiles/" + username + ".dat");
+        UserProfile profile = loadSnapshot(username);
+        ProfileJournal journal = profile.journal();
+        try {
+            journal.lock();
+            try {
+                profile.journalRecords = journal.replay(profile);
+            } finally {
+                journal.unlock();
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying profile journal: " + e.getMessage());
+        }
+        if (profile.journalRecords >= COMPACT_AFTER_RECORDS) {
+            profile.saveProfile();
+        }
+        LOAD_LATENCY.recordSince(started);
+        return profile;
+    }
+    
+    private static UserProfile loadSnapshot(String username) {
+        File profileFile = new File(profilesDirectory, username + ".dat");
         if (!profileFile.exists()) {
             return new UserProfile(username);
         }
         
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new FileInputStream(profileFile))) {
-            return (UserProfile) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(profileFile))) {
+            if (ProfileFormat.isProfileFormat(in)) {
+                return ProfileFormat.read(in);
+            }
+        } catch (IOException e) {
             System.err.println("Error loading profile: " + e.getMessage());
             return new UserProfile(username);
         }
+        
+        // Older versions saved the serialized object; import it and rewrite
+        UserProfile profile = importLegacyProfile(profileFile);
+        if (profile == null) {
+            return new UserProfile(username);
+        }
+        profile.saveProfile();
+        System.out.println("Migrated profile " + username + " to the compact format");
+        return profile;
+    }
+    
+    /**
+     * Read a profile written with Java serialization by older versions
+     */
+    private static UserProfile importLegacyProfile(File profileFile) {
+        try (ObjectInputStream ois = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(profileFile)))) {
+            UserProfile profile = (UserProfile) ois.readObject();
+            if (profile.quizHistory == null) {
+                profile.quizHistory = new HashMap<>();
+            }
+            if (profile.earnedBadges == null) {
+                profile.earnedBadges = new ArrayList<>();
+            }
+            profile.rebuildScoreStats();
+            profile.achievements = new AchievementEngine(profile.earnedBadges, profile.achievementPoints);
+            profile.achievements.prime(profile.quizHistory);
+            return profile;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("Error loading profile: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Keep profiles under another directory instead of profiles/, e.g. a
+     * scratch directory for benchmarks
+     */
+    static void setProfilesDirectory(File directory) {
+        profilesDirectory = directory;
+    }
+    
+    static File getProfilesDirectory() {
+        return profilesDirectory;
     }
     
     // Get all saved usernames
     public static List<String> getAllUsernames() {
         List<String> usernames = new ArrayList<>();
-        File directory = new File("profiles");
+        File directory = profilesDirectory;
         
         if (!directory.exists() || !directory.isDirectory()) {
             return usernames;
@@ -145,11 +451,11 @@ public class UserProfile implements Serializable {
     }
     
     public int getAchievementPoints() {
-        return achievementPoints;
+        return achievements.getPoints();
     }
     
     public List<String> getEarnedBadges() {
-        return earnedBadges;
+        return new ArrayList<>(achievements.getEarnedBadges());
     }
     
     public String getPreferredDifficulty() {
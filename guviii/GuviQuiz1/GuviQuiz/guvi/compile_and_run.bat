@@ -25,15 +25,17 @@ echo.
 echo 1. Run Gemini AI Setup
 echo 2. Test Gemini Integration
 echo 3. Run Quiz Application
-echo 4. Exit
+echo 4. Run Benchmarks
+echo 5. Exit
 echo.
 
-set /p choice="Enter your choice (1-4): "
+set /p choice="Enter your choice (1-5): "
 
 if "%choice%"=="1" goto setup
 if "%choice%"=="2" goto test
 if "%choice%"=="3" goto run
-if "%choice%"=="4" goto end
+if "%choice%"=="4" goto bench
+if "%choice%"=="5" goto end
 
 echo Invalid choice!
 pause
@@ -66,6 +68,15 @@ echo.
 java Login
 goto end
 
+:bench
+echo.
+echo ========================================
+echo   Running Benchmarks
+echo ========================================
+echo.
+java QuizBenchmarks
+goto end
+
 :end
 echo.
 pause